@@ -0,0 +1,88 @@
+package com.kubazuch.bench;
+
+import com.kubazuch.render.DisplayList;
+import com.kubazuch.render.IntRaster;
+import com.kubazuch.render.TiledRasterizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Antialiased lines: Java2D's builtin antialiasing against Wu lines written straight into the software raster
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LineBenchmark {
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 800;
+
+    @Param({"1000", "10000"})
+    public int lines;
+
+    private int[] coordinates;
+    private BufferedImage image;
+    private IntRaster raster;
+    private TiledRasterizer singleThreaded;
+    private TiledRasterizer tiled;
+    private DisplayList displayList;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        coordinates = new int[4 * lines];
+        for (int i = 0; i < lines; i++) {
+            coordinates[4 * i] = random.nextInt(WIDTH);
+            coordinates[4 * i + 1] = random.nextInt(HEIGHT);
+            coordinates[4 * i + 2] = random.nextInt(WIDTH);
+            coordinates[4 * i + 3] = random.nextInt(HEIGHT);
+        }
+
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        raster = new IntRaster(WIDTH, HEIGHT);
+        singleThreaded = new TiledRasterizer(Math.max(WIDTH, HEIGHT), 1);
+        tiled = new TiledRasterizer();
+
+        displayList = new DisplayList();
+        displayList.setAntialiased(true);
+        for (int i = 0; i < lines; i++) {
+            displayList.line(coordinates[4 * i], coordinates[4 * i + 1], coordinates[4 * i + 2], coordinates[4 * i + 3], Color.BLACK);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        singleThreaded.shutdown();
+        tiled.shutdown();
+    }
+
+    @Benchmark
+    public BufferedImage builtin() {
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, WIDTH, HEIGHT);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(Color.BLACK);
+        for (int i = 0; i < lines; i++) {
+            g.drawLine(coordinates[4 * i], coordinates[4 * i + 1], coordinates[4 * i + 2], coordinates[4 * i + 3]);
+        }
+        g.dispose();
+        return image;
+    }
+
+    @Benchmark
+    public IntRaster wu() {
+        singleThreaded.render(displayList, raster, Color.WHITE.getRGB());
+        return raster;
+    }
+
+    @Benchmark
+    public IntRaster wuTiled() {
+        tiled.render(displayList, raster, Color.WHITE.getRGB());
+        return raster;
+    }
+}
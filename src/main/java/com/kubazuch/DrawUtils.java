@@ -3,23 +3,40 @@ package com.kubazuch;
 import com.kubazuch.geometry.Edge;
 import com.kubazuch.geometry.GeometryUtils;
 import com.kubazuch.geometry.Segment;
+import com.kubazuch.geometry.SnapIndex;
 
 import java.awt.*;
 import java.awt.font.FontRenderContext;
 import java.awt.font.TextLayout;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 public class DrawUtils {
     public enum LineAlgorithm {
-        BUILTIN, BRESENHAM
+        BUILTIN, BRESENHAM,
+        // Antialiased lines written straight into the software raster; see LinePrimitive
+        WU
     }
 
     public static final int SELECTED_POINT_RADIUS = GeometryUtils.POINT_RADIUS * 5 / 4;
     public static final int SELECTED_LINE_THICKNESS = 3;
+    public static final int OFFSET_DASH = 9;
+    public static final Color CROSSING_COLOR = Color.RED;
+    public static final Color SNAP_COLOR = new Color(0x00a0a0);
     public static LineAlgorithm lineAlgorithm = LineAlgorithm.BUILTIN;
 
+    private static final Stroke SELECTED_STROKE = new BasicStroke(SELECTED_LINE_THICKNESS);
+    private static final Stroke OFFSET_STROKE = new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{OFFSET_DASH}, 0);
+    private static final Stroke SNAP_STROKE = new BasicStroke(2);
+
     public static void drawPoint(Graphics2D g, Point2D p) {
         drawPoint(g, p, GeometryUtils.POINT_RADIUS);
     }
@@ -28,10 +45,41 @@ public class DrawUtils {
         g.fillOval((int) p.getX() - radius, (int) p.getY() - radius, 2 * radius, 2 * radius);
     }
 
+    public static void drawCrossing(Graphics2D g, Point2D p) {
+        int radius = SELECTED_POINT_RADIUS;
+        Stroke old = g.getStroke();
+
+        g.setStroke(SELECTED_STROKE);
+        g.drawOval((int) p.getX() - radius, (int) p.getY() - radius, 2 * radius, 2 * radius);
+        g.setStroke(old);
+    }
+
+    // A square on a vertex, a diamond on an edge and a cross on a grid node
+    public static void drawSnapTarget(Graphics2D g, SnapIndex.Target target) {
+        int x = (int) Math.round(target.point().getX());
+        int y = (int) Math.round(target.point().getY());
+        int r = SELECTED_POINT_RADIUS + 1;
+
+        Color oldColor = g.getColor();
+        Stroke oldStroke = g.getStroke();
+        g.setColor(SNAP_COLOR);
+        g.setStroke(SNAP_STROKE);
+        switch (target.kind()) {
+            case VERTEX -> g.drawRect(x - r, y - r, 2 * r, 2 * r);
+            case EDGE -> g.drawPolygon(new int[]{x, x + r, x, x - r}, new int[]{y - r, y, y + r, y}, 4);
+            case GRID -> {
+                g.drawLine(x - r, y, x + r, y);
+                g.drawLine(x, y - r, x, y + r);
+            }
+        }
+        g.setStroke(oldStroke);
+        g.setColor(oldColor);
+    }
+
     public static void drawLine(Graphics2D g, Segment segment, int thickness) {
         Stroke old = g.getStroke();
 
-        g.setStroke(new BasicStroke(thickness));
+        g.setStroke(thickness == SELECTED_LINE_THICKNESS ? SELECTED_STROKE : new BasicStroke(thickness));
         drawLine(g, segment);
         g.setStroke(old);
     }
@@ -46,6 +94,10 @@ public class DrawUtils {
                 midpointLine(g, (int) segment.getFrom().getX(), (int) segment.getFrom().getY(), (int) segment.getTo().getX(), (int) segment.getTo().getY());
                 g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 break;
+            case WU:
+                // There is no raster behind a plain Graphics2D; the closest thing is Java2D's own antialiasing
+                g.drawLine((int) segment.getFrom().getX(), (int) segment.getFrom().getY(), (int) segment.getTo().getX(), (int) segment.getTo().getY());
+                break;
         }
     }
 
@@ -126,61 +178,182 @@ public class DrawUtils {
     }
 
     public static <T extends Point2D> void drawPolygonalChain(Graphics2D g, LinkedList<T> chain, T potentialPoint) {
+        drawPolygonalChain(g, chain, potentialPoint, List.of());
+    }
+
+    // Same chain, with the points where it crosses itself ringed in red
+    public static <T extends Point2D> void drawPolygonalChain(Graphics2D g, LinkedList<T> chain, T potentialPoint, List<Point2D> crossings) {
         if (chain.isEmpty()) return;
 
         for (Segment segment : GeometryUtils.buildLineList(chain, potentialPoint)) {
             drawPoint(g, segment.getFrom());
             drawLine(g, segment);
         }
-    }
 
-    public static void drawOffset(Graphics2D g, LinkedList<Point2D> polygon) {
-        Stroke old = g.getStroke();
+        if (crossings.isEmpty()) return;
 
-        if (lineAlgorithm == LineAlgorithm.BUILTIN)
-            g.setStroke(new BasicStroke(1, BasicStroke.CAP_BUTT, BasicStroke.JOIN_BEVEL, 0, new float[]{9}, 0));
+        Color old = g.getColor();
+        g.setColor(CROSSING_COLOR);
+        for (Point2D crossing : crossings) {
+            drawCrossing(g, crossing);
+        }
+        g.setColor(old);
+    }
 
-        for (Segment segment : GeometryUtils.buildLineList(polygon, null)) {
-            drawLine(g, segment);
+    // Draws all offset contours of a polygon; with the builtin algorithm they go out as one dashed path
+    public static void drawOffset(Graphics2D g, List<? extends List<Point2D>> contours) {
+        if (!canBatch()) {
+            for (List<Point2D> contour : contours) {
+                for (Segment segment : GeometryUtils.buildLineList(contour, null)) {
+                    drawLine(g, segment);
+                }
+            }
+            return;
+        }
+
+        Path2D path = new Path2D.Float();
+        for (List<Point2D> contour : contours) {
+            for (Segment segment : GeometryUtils.buildLineList(contour, null)) {
+                appendLine(path, segment);
+            }
         }
+
+        Stroke old = g.getStroke();
+        g.setStroke(OFFSET_STROKE);
+        g.draw(path);
         g.setStroke(old);
     }
 
-    private static Shape verticalShape;
-    private static Shape horizontalShape;
+    /*
+     * Batching: many primitives of the same color and stroke are collected into one path and drawn in a single call.
+     * Only the builtin algorithm can do that; the pixel-level ones have to plot every line themselves.
+     */
 
-    public static void drawConstraint(Graphics2D g, Edge.Constraint constraint, Point2D point) {
-        Color oldColor = g.getColor();
-        AffineTransform oldTransform = g.getTransform();
-        Stroke oldStroke = g.getStroke();
-        FontRenderContext frc = g.getFontRenderContext();
-
-        if (constraint == Edge.Constraint.VERTICAL && verticalShape == null) {
-            TextLayout tl = new TextLayout("V", g.getFont().deriveFont(24f), frc);
-            verticalShape = tl.getOutline(null);
-        } else if (constraint == Edge.Constraint.HORIZONTAL && horizontalShape == null) {
-            TextLayout tl = new TextLayout("H", g.getFont().deriveFont(24f), frc);
-            horizontalShape = tl.getOutline(null);
+    public static boolean canBatch() {
+        return lineAlgorithm == LineAlgorithm.BUILTIN;
+    }
+
+    // Every segment starts a new subpath, so it is rasterized (and dashed) exactly as its own drawLine would be
+    public static void appendLine(Path2D path, Segment segment) {
+        path.moveTo((int) segment.getFrom().getX(), (int) segment.getFrom().getY());
+        path.lineTo((int) segment.getTo().getX(), (int) segment.getTo().getY());
+    }
+
+    public static void appendPoint(Path2D path, Point2D p) {
+        int radius = GeometryUtils.POINT_RADIUS;
+        path.append(new Ellipse2D.Float((int) p.getX() - radius, (int) p.getY() - radius, 2 * radius, 2 * radius), false);
+    }
+
+    /*
+     * Constraint badges are pre-rendered once per constraint, font and device scale; drawing one is a single blit
+     */
+    private static final int SPRITE_CACHE_SIZE = 32;
+    private static final float BADGE_FONT_SIZE = 24f;
+    private static final float BADGE_OUTLINE = 3f;
+
+    private record SpriteKey(Edge.Constraint constraint, Font font, double scaleX, double scaleY) {
+    }
+
+    private record Sprite(Image image, int width, int height, int offsetX, int offsetY) {
+    }
+
+    private static final Map<SpriteKey, Sprite> constraintSprites = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SpriteKey, Sprite> eldest) {
+            return size() > SPRITE_CACHE_SIZE;
         }
+    };
 
-        Shape shape = constraint == Edge.Constraint.VERTICAL ? verticalShape : horizontalShape;
-        Rectangle bounds = shape.getBounds();
-        int x = (int) (point.getX() - bounds.width / 2);
-        int y = (int) (point.getY() + bounds.height / 2);
+    public static void drawConstraint(Graphics2D g, Edge.Constraint constraint, Point2D point) {
+        AffineTransform transform = g.getTransform();
+        SpriteKey key = new SpriteKey(constraint, g.getFont(), transform.getScaleX(), transform.getScaleY());
+        Sprite sprite = constraintSprite(key);
 
-        AffineTransform transform = (AffineTransform) oldTransform.clone();
-        transform.translate(x, y);
-        g.transform(transform);
+        int x = (int) point.getX() + sprite.offsetX();
+        int y = (int) point.getY() + sprite.offsetY();
+        g.drawImage(sprite.image(), x, y, sprite.width(), sprite.height(), null);
+    }
 
-        g.setStroke(new BasicStroke(3f));
+    // Export renders tiles on several threads at once, and an access-ordered map changes on every lookup
+    private static synchronized Sprite constraintSprite(SpriteKey key) {
+        return constraintSprites.computeIfAbsent(key, DrawUtils::renderConstraintSprite);
+    }
+
+    // The badge is the glyph centered on the anchor point, outlined in black and filled with white. The image is
+    // rasterized at device resolution and blitted back at its size in user space.
+    private static Sprite renderConstraintSprite(SpriteKey key) {
+        String text = key.constraint() == Edge.Constraint.VERTICAL ? "V" : "H";
+        FontRenderContext frc = new FontRenderContext(null, true, true);
+        Shape shape = new TextLayout(text, key.font().deriveFont(BADGE_FONT_SIZE), frc).getOutline(null);
+
+        Rectangle bounds = shape.getBounds();
+        int pad = (int) Math.ceil(BADGE_OUTLINE / 2) + 1;
+        int width = bounds.width + 2 * pad;
+        int height = bounds.height + 2 * pad;
+
+        double scaleX = Math.abs(key.scaleX()) > 0 ? Math.abs(key.scaleX()) : 1;
+        double scaleY = Math.abs(key.scaleY()) > 0 ? Math.abs(key.scaleY()) : 1;
+        BufferedImage image = new BufferedImage((int) Math.ceil(width * scaleX), (int) Math.ceil(height * scaleY), BufferedImage.TYPE_INT_ARGB);
+
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.scale(scaleX, scaleY);
+        g.translate(pad - bounds.x, pad - bounds.y);
+        g.setStroke(new BasicStroke(BADGE_OUTLINE));
         g.setColor(Color.BLACK);
         g.draw(shape);
         g.setColor(Color.WHITE);
         g.fill(shape);
+        g.dispose();
 
-        g.setColor(oldColor);
-        g.setTransform(oldTransform);
-        g.setStroke(oldStroke);
+        // Same placement as the glyph has always had: centered horizontally, baseline half its height below the point
+        int offsetX = -bounds.width / 2 + bounds.x - pad;
+        int offsetY = bounds.height / 2 + bounds.y - pad;
+        return new Sprite(image, width, height, offsetX, offsetY);
+    }
+
+    /*
+     * Circle outlines are pre-rendered once per radius; drawing one is a single blit at its centre. Very large radii
+     * would make images far bigger than the few pixels they plot, so those are still drawn directly.
+     */
+    private static final int CIRCLE_SPRITE_MAX_RADIUS = 1024;
+    private static final long CIRCLE_SPRITE_PIXEL_BUDGET = 16L << 20;
+
+    private static final Map<Integer, BufferedImage> circleSprites = new LinkedHashMap<>(16, 0.75f, true);
+    private static long circleSpritePixels;
+
+    public static void drawCircle(Graphics2D g, Point center, int radius) {
+        if (radius < 0 || radius > CIRCLE_SPRITE_MAX_RADIUS) {
+            drawWuCirlce(g, center, radius);
+            return;
+        }
+
+        // The outline reaches one pixel past the radius
+        int pad = radius + 1;
+        g.drawImage(circleSprite(radius), center.x - pad, center.y - pad, null);
+    }
+
+    private static synchronized BufferedImage circleSprite(int radius) {
+        BufferedImage sprite = circleSprites.get(radius);
+        if (sprite != null)
+            return sprite;
+
+        int pad = radius + 1;
+        sprite = new BufferedImage(2 * pad + 1, 2 * pad + 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sprite.createGraphics();
+        drawWuCirlce(g, new Point(pad, pad), radius);
+        g.dispose();
+
+        circleSprites.put(radius, sprite);
+        circleSpritePixels += (long) sprite.getWidth() * sprite.getHeight();
+
+        // Least recently drawn radii go first, but never the one just made
+        for (Iterator<BufferedImage> it = circleSprites.values().iterator(); circleSpritePixels > CIRCLE_SPRITE_PIXEL_BUDGET && circleSprites.size() > 1; ) {
+            BufferedImage eldest = it.next();
+            circleSpritePixels -= (long) eldest.getWidth() * eldest.getHeight();
+            it.remove();
+        }
+        return sprite;
     }
 
     private interface PointPutter {
@@ -2,13 +2,14 @@ package com.kubazuch;
 
 import com.kubazuch.component.Canvas;
 import com.kubazuch.component.ColorChooserButton;
-import com.kubazuch.component.ListItemTransferHandler;
 import com.kubazuch.component.PolygonRenderer;
 import com.kubazuch.geometry.Edge;
 import com.kubazuch.geometry.Polygon;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 
 public class PolygonFrame extends JFrame {
 
@@ -33,10 +34,26 @@ public class PolygonFrame extends JFrame {
 	public JButton vertexDelete;
 	public JRadioButton builtInRadioButton;
 	public JRadioButton bresenhamRadioButton;
+	public JRadioButton wuRadioButton;
 	public JSlider offsetSlider;
 	public JButton clearButton;
 	public JPanel circlePanel;
 	public JSlider radiusSlider;
+	public JMenuItem undoMenuItem;
+	public JMenuItem redoMenuItem;
+	public JMenuItem generateSceneMenuItem;
+	public JMenuItem exportImageMenuItem;
+	public JMenuItem subdivideMenuItem;
+	public JMenuItem thinMenuItem;
+	public JMenuItem simplifyMenuItem;
+	public JCheckBoxMenuItem snapToVerticesMenuItem;
+	public JCheckBoxMenuItem snapToEdgesMenuItem;
+	public JCheckBoxMenuItem snapToGridMenuItem;
+	public JCheckBoxMenuItem activeRenderingMenuItem;
+	public JCheckBoxMenuItem progressiveRenderingMenuItem;
+	public JCheckBoxMenuItem softwareRenderingMenuItem;
+	public JCheckBoxMenuItem fillPolygonsMenuItem;
+	public JCheckBoxMenuItem fillOffsetsMenuItem;
 
 	/******************************************************/
 
@@ -52,9 +69,8 @@ public class PolygonFrame extends JFrame {
 		infoPanel = new JPanel();
 
 		polygonList = new JList<>();
-		polygonList.setCellRenderer(new PolygonRenderer());
+		new PolygonRenderer().install(polygonList);
 		polygonList.setDragEnabled(true);
-		polygonList.setTransferHandler(new ListItemTransferHandler());
 
 		polygonColor = new ColorChooserButton(Color.BLACK);
 
@@ -65,6 +81,7 @@ public class PolygonFrame extends JFrame {
 
 		builtInRadioButton = new JRadioButton();
 		bresenhamRadioButton = new JRadioButton();
+		wuRadioButton = new JRadioButton();
 		offsetSlider = new JSlider();
 		clearButton = new JButton();
 		radiusSlider = new JSlider();
@@ -72,6 +89,54 @@ public class PolygonFrame extends JFrame {
 		canvas = new Canvas(this);
 
 		JMenuBar menuBar = new JMenuBar();
+		JMenu editMenu = new JMenu("Edit");
+		undoMenuItem = new JMenuItem("Undo");
+		undoMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK));
+		redoMenuItem = new JMenuItem("Redo");
+		redoMenuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK));
+		editMenu.add(undoMenuItem);
+		editMenu.add(redoMenuItem);
+		editMenu.addSeparator();
+		JMenu snapMenu = new JMenu("Snap");
+		snapToVerticesMenuItem = new JCheckBoxMenuItem("To vertices", true);
+		snapMenu.add(snapToVerticesMenuItem);
+		snapToEdgesMenuItem = new JCheckBoxMenuItem("To edges", true);
+		snapMenu.add(snapToEdgesMenuItem);
+		snapToGridMenuItem = new JCheckBoxMenuItem("To grid");
+		snapMenu.add(snapToGridMenuItem);
+		editMenu.add(snapMenu);
+		menuBar.add(editMenu);
+
+		JMenu polygonMenu = new JMenu("Polygon");
+		subdivideMenuItem = new JMenuItem("Subdivide edges...");
+		polygonMenu.add(subdivideMenuItem);
+		thinMenuItem = new JMenuItem("Remove close vertices...");
+		polygonMenu.add(thinMenuItem);
+		simplifyMenuItem = new JMenuItem("Simplify...");
+		polygonMenu.add(simplifyMenuItem);
+		menuBar.add(polygonMenu);
+
+		JMenu sceneMenu = new JMenu("Scene");
+		generateSceneMenuItem = new JMenuItem("Generate stress scene...");
+		sceneMenu.add(generateSceneMenuItem);
+		exportImageMenuItem = new JMenuItem("Export PNG...");
+		sceneMenu.add(exportImageMenuItem);
+		menuBar.add(sceneMenu);
+
+		JMenu viewMenu = new JMenu("View");
+		activeRenderingMenuItem = new JCheckBoxMenuItem("Active rendering");
+		viewMenu.add(activeRenderingMenuItem);
+		softwareRenderingMenuItem = new JCheckBoxMenuItem("Tiled software renderer");
+		viewMenu.add(softwareRenderingMenuItem);
+		progressiveRenderingMenuItem = new JCheckBoxMenuItem("Progressive rendering");
+		viewMenu.add(progressiveRenderingMenuItem);
+		viewMenu.addSeparator();
+		fillPolygonsMenuItem = new JCheckBoxMenuItem("Fill polygons");
+		viewMenu.add(fillPolygonsMenuItem);
+		fillOffsetsMenuItem = new JCheckBoxMenuItem("Fill offset contours");
+		viewMenu.add(fillOffsetsMenuItem);
+		menuBar.add(viewMenu);
+
 		JMenu helpMenu = new JMenu("Help");
 		JMenuItem keyMenuItem = new JMenuItem("Controls");
 		keyMenuItem.addActionListener(l -> {
@@ -89,12 +154,17 @@ public class PolygonFrame extends JFrame {
 				    LMB - move, draw
 				    MMB - divide edge
 				    RMB - begin draw
+				    Alt - hold to place or drag without snapping
 				  
 				Keyboard:
 				    V - vertical constraint
 				    H - horizontal constraint
 				    C - clear constraint
-				    Del - delete""";
+				    Del - delete
+				    PgUp - bring polygon to front
+				    PgDn - send polygon to back
+				    Ctrl+Z - undo
+				    Ctrl+Y - redo""";
 
 		JOptionPane.showMessageDialog(this, keybindings, "Controls", JOptionPane.INFORMATION_MESSAGE);
 	}
@@ -0,0 +1,154 @@
+package com.kubazuch.bench;
+
+import com.kubazuch.DrawUtils;
+import com.kubazuch.scene.Scene;
+import com.kubazuch.scene.SceneGenerator;
+import com.kubazuch.scene.SceneRenderer;
+import com.kubazuch.scene.StartupScene;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Headless render regression check. Every scene is rendered offscreen in every rendering mode and offset, timed, and
+// compared pixel by pixel with golden images recorded earlier, so a change can be judged on speed and output at once.
+//
+//   --record <dir>   render and store golden images
+//   --verify <dir>   render and compare against the golden images (exit status 1 on any difference)
+//   --runs <n>       timed renders per case (default 10, after as many warm-up renders)
+public class RenderHarness {
+	private static final int WIDTH = 1024;
+	private static final int HEIGHT = 768;
+	private static final int[] OFFSETS = {0, 10, 25};
+
+	private record Mode(String name, DrawUtils.LineAlgorithm algorithm, boolean software) {
+	}
+
+	private static final List<Mode> MODES = List.of(
+			new Mode("builtin", DrawUtils.LineAlgorithm.BUILTIN, false),
+			new Mode("bresenham", DrawUtils.LineAlgorithm.BRESENHAM, false),
+			new Mode("tiled", DrawUtils.LineAlgorithm.BUILTIN, true),
+			new Mode("tiled-wu", DrawUtils.LineAlgorithm.WU, true)
+	);
+
+	public static void main(String[] args) throws IOException {
+		System.setProperty("java.awt.headless", "true");
+
+		Path record = null, verify = null;
+		int runs = 10;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--record" -> record = Path.of(args[++i]);
+				case "--verify" -> verify = Path.of(args[++i]);
+				case "--runs" -> runs = Integer.parseInt(args[++i]);
+				default -> {
+					System.err.println("Usage: RenderHarness (--record <dir> | --verify <dir>) [--runs <n>]");
+					System.exit(2);
+				}
+			}
+		}
+		if ((record == null) == (verify == null)) {
+			System.err.println("Usage: RenderHarness (--record <dir> | --verify <dir>) [--runs <n>]");
+			System.exit(2);
+		}
+
+		Path dir = record != null ? record : verify;
+		Files.createDirectories(dir);
+
+		Map<String, Supplier<Scene>> scenes = new LinkedHashMap<>();
+		scenes.put("startup", RenderHarness::startupScene);
+		scenes.put("stars-50x12", () -> generatedScene(new SceneGenerator.Spec(1, 50, 12, 10, SceneGenerator.Outline.STAR, 0.3, WIDTH, HEIGHT)));
+		scenes.put("stars-300x24", () -> generatedScene(new SceneGenerator.Spec(2, 300, 24, 50, SceneGenerator.Outline.STAR, 0.3, WIDTH, HEIGHT)));
+		scenes.put("mixed-40x16", () -> generatedScene(new SceneGenerator.Spec(3, 40, 16, 5, SceneGenerator.Outline.MIXED, 0.3, WIDTH, HEIGHT)));
+
+		boolean failed = false;
+		System.out.printf("%-16s %-10s %6s %10s %10s  %s%n", "scene", "mode", "offset", "median ms", "min ms", "result");
+
+		for (Map.Entry<String, Supplier<Scene>> entry : scenes.entrySet()) {
+			Scene scene = entry.getValue().get();
+
+			for (Mode mode : MODES) {
+				for (int offset : OFFSETS) {
+					String name = entry.getKey() + "-" + mode.name() + "-" + offset;
+
+					SceneRenderer renderer = new SceneRenderer(scene);
+					DrawUtils.lineAlgorithm = mode.algorithm();
+					renderer.setSoftwareRendering(mode.software());
+					renderer.setOffset(offset);
+
+					BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+					long[] times = new long[runs];
+					for (int run = -runs; run < runs; run++) {
+						long start = System.nanoTime();
+						Graphics2D g = image.createGraphics();
+						renderer.render(g, WIDTH, HEIGHT);
+						g.dispose();
+						if (run >= 0)
+							times[run] = System.nanoTime() - start;
+					}
+					renderer.dispose();
+
+					String result;
+					Path golden = dir.resolve(name + ".png");
+					if (record != null) {
+						ImageIO.write(image, "png", golden.toFile());
+						result = "recorded";
+					} else if (!Files.exists(golden)) {
+						result = "NO GOLDEN";
+						failed = true;
+					} else {
+						long different = countDifferences(ImageIO.read(golden.toFile()), image);
+						if (different == 0) {
+							result = "ok";
+						} else {
+							result = "DIFFERS in " + different + " px";
+							failed = true;
+							ImageIO.write(image, "png", dir.resolve(name + ".actual.png").toFile());
+						}
+					}
+
+					Arrays.sort(times);
+					System.out.printf("%-16s %-10s %6d %10.2f %10.2f  %s%n", entry.getKey(), mode.name(), offset,
+							runs == 0 ? 0 : times[runs / 2] / 1e6, runs == 0 ? 0 : times[0] / 1e6, result);
+				}
+			}
+		}
+
+		DrawUtils.lineAlgorithm = DrawUtils.LineAlgorithm.BUILTIN;
+		System.exit(failed ? 1 : 0);
+	}
+
+	private static long countDifferences(BufferedImage expected, BufferedImage actual) {
+		if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight())
+			return (long) actual.getWidth() * actual.getHeight();
+
+		long different = 0;
+		for (int y = 0; y < actual.getHeight(); y++) {
+			for (int x = 0; x < actual.getWidth(); x++) {
+				if ((expected.getRGB(x, y) & 0xFFFFFF) != (actual.getRGB(x, y) & 0xFFFFFF))
+					different++;
+			}
+		}
+		return different;
+	}
+
+	private static Scene startupScene() {
+		Scene scene = new Scene();
+		StartupScene.populate(scene, p -> {
+		});
+		return scene;
+	}
+
+	private static Scene generatedScene(SceneGenerator.Spec spec) {
+		Scene scene = new Scene();
+		SceneGenerator.populate(scene, spec, p -> {
+		});
+		return scene;
+	}
+}
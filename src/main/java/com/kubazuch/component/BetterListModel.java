@@ -1,15 +1,13 @@
 package com.kubazuch.component;
 
 import javax.swing.*;
-import java.util.List;
-import java.util.Iterator;
-import java.util.ListIterator;
+import java.util.*;
 
 public class BetterListModel<E> extends AbstractListModel<E> implements Iterable<E> {
-    private final List<E> collection;
+    private final OrderStatisticList<E> collection;
 
-    public BetterListModel(List<E> collection) {
-        this.collection = collection;
+    public BetterListModel() {
+        this.collection = new OrderStatisticList<>();
     }
 
     @Override
@@ -53,14 +51,14 @@ public class BetterListModel<E> extends AbstractListModel<E> implements Iterable
 
     public boolean remove(E value) {
         int index = indexOf(value);
-        boolean rv = collection.remove(value);
-        if (index >= 0) {
-            fireIntervalRemoved(this, index, index);
-        }
-        return rv;
+        if (index < 0)
+            return false;
+
+        remove(index);
+        return true;
     }
 
-    private int indexOf(E value) {
+    public int indexOf(E value) {
         return collection.indexOf(value);
     }
 
@@ -69,9 +67,117 @@ public class BetterListModel<E> extends AbstractListModel<E> implements Iterable
         fireIntervalAdded(this, 0, 0);
     }
 
+    // Takes the element at from out and puts it back so that it ends up at index to
+    public void move(int from, int to) {
+        if (from == to)
+            return;
+
+        collection.move(from, to);
+        fireContentsChanged(this, Math.min(from, to), Math.max(from, to));
+    }
+
+    public void moveToFront(E value) {
+        int index = indexOf(value);
+        if (index >= 0)
+            move(index, 0);
+    }
+
+    public void moveToBack(E value) {
+        int index = indexOf(value);
+        if (index >= 0)
+            move(index, collection.size() - 1);
+    }
+
     public void clear() {
-        int index = collection.size();
+        int size = collection.size();
+        if (size == 0)
+            return;
+
         collection.clear();
-        fireIntervalRemoved(this, 0, index);
+        fireIntervalRemoved(this, 0, size - 1);
+    }
+
+    /*
+     * Batch operations; the list is changed in one pass and the events describe whole ranges, not single elements
+     */
+
+    public void addAll(Collection<? extends E> values) {
+        addAll(collection.size(), values);
+    }
+
+    public void addAll(int index, Collection<? extends E> values) {
+        if (values.isEmpty())
+            return;
+
+        collection.addAll(index, values);
+        fireIntervalAdded(this, index, index + values.size() - 1);
+    }
+
+    // Removes every listed element in one pass. A ListDataEvent can only name one contiguous interval, so this
+    // fires one event per contiguous run of removed rows, from the bottom up, so that the indices of every event
+    // still hold after the ones before it
+    public void removeAll(Collection<? extends E> values) {
+        if (values.isEmpty())
+            return;
+
+        Set<E> removed = Collections.newSetFromMap(new IdentityHashMap<>(values.size()));
+        removed.addAll(values);
+
+        List<int[]> runs = new ArrayList<>();
+        int index = 0;
+        for (E element : collection) {
+            if (removed.contains(element)) {
+                int[] last = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+                if (last != null && last[1] == index - 1)
+                    last[1] = index;
+                else
+                    runs.add(new int[]{index, index});
+            }
+            index++;
+        }
+        if (runs.isEmpty())
+            return;
+
+        collection.removeIf(removed::contains);
+        for (int i = runs.size() - 1; i >= 0; i--) {
+            fireIntervalRemoved(this, runs.get(i)[0], runs.get(i)[1]);
+        }
+    }
+
+    // Rows both lists have are reported as changed, the difference in length as added or removed
+    public void replaceAll(Collection<? extends E> values) {
+        int size = collection.size();
+        collection.clear();
+        collection.addAll(values);
+
+        int common = Math.min(size, collection.size());
+        if (common > 0)
+            fireContentsChanged(this, 0, common - 1);
+        if (size > collection.size())
+            fireIntervalRemoved(this, collection.size(), size - 1);
+        else if (size < collection.size())
+            fireIntervalAdded(this, size, collection.size() - 1);
+    }
+
+    // Rearranges the list so that the element at position i afterwards is the one previously at order[i]
+    public void reorder(int[] order) {
+        if (order.length != collection.size())
+            throw new IllegalArgumentException("Permutation of length " + order.length + " for " + collection.size() + " elements");
+
+        boolean[] seen = new boolean[order.length];
+        List<E> reordered = new ArrayList<>(order.length);
+        for (int index : order) {
+            if (index < 0 || index >= order.length || seen[index])
+                throw new IllegalArgumentException("Not a permutation: " + Arrays.toString(order));
+            seen[index] = true;
+            reordered.add(collection.get(index));
+        }
+
+        // Every element stays in the list, so it cannot be set into another position; rebuild the tree in the new order
+        collection.clear();
+        collection.addAll(reordered);
+
+        if (order.length > 0)
+            fireContentsChanged(this, 0, order.length - 1);
     }
 }
@@ -2,16 +2,42 @@ package com.kubazuch.component;
 
 import com.kubazuch.DrawUtils;
 import com.kubazuch.PolygonFrame;
+import com.kubazuch.export.SceneExporter;
 import com.kubazuch.geometry.*;
 import com.kubazuch.geometry.Polygon;
+import com.kubazuch.history.*;
+import com.kubazuch.journal.Journal;
+import com.kubazuch.render.DisplayList;
+import com.kubazuch.scene.Scene;
+import com.kubazuch.scene.SceneGenerator;
+import com.kubazuch.scene.SceneRenderer;
+import com.kubazuch.scene.SceneSnapshot;
+import com.kubazuch.scene.SnapshotPublisher;
+import com.kubazuch.scene.StartupScene;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.awt.image.VolatileImage;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Canvas extends JPanel implements MouseMotionListener {
+    private static final long HISTORY_BYTE_BUDGET = Long.getLong("polygon.history.budget", 64L << 20);
+    private static final int HISTORY_CHECKPOINT_INTERVAL = 64;
+    private static final boolean JOURNAL_ENABLED = Boolean.parseBoolean(System.getProperty("polygon.journal", "true"));
+    private static final int TARGET_FPS = 60;
+    private static final long PROGRESSIVE_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("polygon.render.budget", 12));
+    private static final int SNAP_GRID_SIZE = 20;
+    private static final Path JOURNAL_DIR = Path.of(System.getProperty("polygon.journal.dir", Path.of(System.getProperty("user.home"), ".gk-polygons").toString()));
 
     public enum State {
         IDLE, DRAW, DRAW_CIRCLE
@@ -22,14 +48,44 @@ public class Canvas extends JPanel implements MouseMotionListener {
     private State canvasState;
     private Point mousePos = new Point(-1, -1);
     private Point lastDrag;
-    private int offset = 0;
 
     private Point circleMiddle;
     private LinkedList<Point> drawing;
+    private final ChainIndex drawingIndex = new ChainIndex();
+    private Point drawCursor;
+    private final Scene scene;
     private final BetterListModel<Polygon> polygons;
-    private final ArrayList<Circle> circles;
+    private final List<Circle> circles;
+    private final History history;
+    private final SceneRenderer renderer;
+    private boolean progressiveRendering;
+    private Journal journal;
+
+    // Active rendering: input only raises this flag, the next frame of the render loop consumes it
+    private RenderLoop renderLoop;
+    private VolatileImage backBuffer;
+    private volatile boolean frameRequested;
+
+    // Set when the mouse moved or the geometry changed; what is under the mouse is resolved once, before the next frame
+    private boolean hoverDirty;
+
+    // Selected and hovered elements; selection is the primary one, which the side panel and single-element actions use
+    private final SelectionModel selectionModel = new SelectionModel();
     private Drawable selection;
-    private Drawable highlight;
+
+    // Rotate/scale handles of the selected polygon and the ring it had when the running gesture started
+    private final TransformHandles handles = new TransformHandles();
+    private RingSnapshot transformStart;
+
+    // Snapping of placed and dragged vertices; the target is shown until the mouse leaves it
+    private final SnapIndex snapIndex;
+    private SnapIndex.Target snapTarget;
+    private Point dragOffset;
+    // Between the first drag event and the release of the button
+    private boolean dragging;
+
+    private final CircleIndex circleIndex;
+    private final SnapshotPublisher snapshots;
 
     private final PolygonFrame parent;
 
@@ -41,104 +97,144 @@ public class Canvas extends JPanel implements MouseMotionListener {
         this.lastDrag = new Point(0, 0);
 
         this.drawing = new LinkedList<>();
-        this.polygons = new BetterListModel<>(new ArrayList<>());
-        this.circles = new ArrayList<>();
+        this.scene = new Scene();
+        this.polygons = scene.getPolygons();
+        this.circles = scene.getCircles();
+        this.snapIndex = new SnapIndex(polygons);
+        this.circleIndex = new CircleIndex(circles);
+        this.snapshots = new SnapshotPublisher(scene);
+        this.history = new History(HISTORY_BYTE_BUDGET, HISTORY_CHECKPOINT_INTERVAL);
+        this.renderer = new SceneRenderer(scene);
+        this.renderer.setSelectionModel(selectionModel);
 
         this.parent = parent;
 
         setupLayout();
-        setupStartupStage();
+        openJournal();
+        if (journal == null || !journal.restoredScene())
+            StartupScene.populate(scene, this::deletePolygon);
+
+        // Dragging moves the hovered object along with the mouse, so the drag's own moves do not change what is under
+        // it; undoing or redoing one makes the geometry jump away from the cursor, though
+        history.addListener((command, undo) -> {
+            boolean gesture = !undo && dragging && (command instanceof MoveCommand || command instanceof TransformCommand);
+            if (!gesture)
+                hoverDirty = true;
+
+            // Moving, transforming or recolouring the active polygon only changes what is drawn between the accumulated layers
+            Polygon active = owningPolygon(selection);
+            boolean activeOnly = command instanceof ColorCommand color ? color.getTarget() == active
+                    : (command instanceof MoveCommand || command instanceof TransformCommand) && active != null && command.getPolygon() == active;
+            if (!activeOnly)
+                renderer.invalidate();
+
+            if (command instanceof MoveCommand move && move.getTarget() == handles.getPolygon())
+                handles.translate(undo ? -move.getDx() : move.getDx(), undo ? -move.getDy() : move.getDy());
+            else
+                handles.invalidate();
+
+            // Single vertices and edges are re-filed in place; everything else that may change shape rebuilds lazily
+            if (command instanceof MoveCommand move && move.getTarget() instanceof Vertex vertex)
+                snapIndex.vertexMoving(vertex);
+            else if (command instanceof MoveCommand move && move.getTarget() instanceof Edge edge)
+                snapIndex.edgeMoving(edge);
+            else if (!(command instanceof ColorCommand || command instanceof ReorderCommand || isCircleCommand(command)))
+                snapIndex.invalidate();
+
+            if (command instanceof MoveCommand move && move.getTarget() instanceof Circle circle)
+                circleIndex.circleChanging(circle);
+            else if (command instanceof RadiusCommand radius)
+                circleIndex.circleChanging(radius.getTarget());
+            else if (command instanceof AddCircleCommand || command instanceof ReplaceSceneCommand)
+                circleIndex.invalidate();
+        });
 
-    }
+        // Read-only copies of the scene for work off the EDT
+        history.addListener(snapshots);
 
-    private void setupStartupStage() {
-        Polygon p1 = new Polygon(new LinkedList<>(Arrays.asList(new Point(90, 30), new Point(330, 30), new Point(325, 260), new Point(100, 260), new Point(50, 170), new Point(100, 170), new Point(110, 200), new Point(240, 200), new Point(242, 60), new Point(90, 65), new Point(85, 130), new Point(20, 130))), Color.GREEN, this::deletePolygon);
-        Edge.Constraint last = Edge.Constraint.HORIZONTAL;
-        for (Edge e : p1.getEdges()) {
-            e.setConstraint(last);
-            if (last == Edge.Constraint.VERTICAL) {
-                last = Edge.Constraint.HORIZONTAL;
-            } else {
-                last = Edge.Constraint.VERTICAL;
-            }
+        if (journal != null) {
+            history.addListener(journal);
+            journal.start(snapshots);
+            Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "journal-shutdown"));
         }
-        polygons.addFirst(p1);
+    }
 
-        Polygon p2 = new Polygon(new LinkedList<>(Arrays.asList(new Point(128, 320), new Point(128, 463), new Point(163, 460), new Point(166, 393), new Point(219, 460), new Point(219, 416), new Point(171, 370), new Point(240, 316), new Point(186, 313), new Point(163, 349), new Point(158, 308))), Color.CYAN, this::deletePolygon);
-        Iterator<Edge> iterator = p2.getEdges().iterator();
-        iterator.next().setConstraint(Edge.Constraint.VERTICAL);
-        iterator.next().setConstraint(Edge.Constraint.HORIZONTAL);
-        iterator.next().setConstraint(Edge.Constraint.VERTICAL);
-        iterator.next();
-        iterator.next().setConstraint(Edge.Constraint.VERTICAL);
-        iterator.next();
-        iterator.next();
-        iterator.next().setConstraint(Edge.Constraint.HORIZONTAL);
-        iterator.next();
-        iterator.next().setConstraint(Edge.Constraint.VERTICAL);
-        iterator.next().setConstraint(Edge.Constraint.HORIZONTAL);
+    private static boolean isCircleCommand(Command command) {
+        return command instanceof AddCircleCommand || command instanceof RadiusCommand
+                || command instanceof MoveCommand move && move.getTarget() instanceof Circle;
+    }
+
+    private void openJournal() {
+        if (!JOURNAL_ENABLED)
+            return;
 
-        polygons.addFirst(p2);
+        try {
+            journal = Journal.open(JOURNAL_DIR, scene, this::deletePolygon);
+        } catch (IOException e) {
+            e.printStackTrace();
+            journal = null;
+        }
     }
 
     /*
      * Polygon manipulation
      */
-    private void testMousePosHighlight() {
-        boolean flag = false;
+    private void resolveHover() {
+        if (!hoverDirty)
+            return;
 
-        for (Polygon polygon : polygons) {
-            Drawable target = polygon.hitTest(mousePos);
-            if (target != null) {
-                flag = true;
+        hoverDirty = false;
+        testMousePosHighlight();
+    }
 
-                if (highlight != null)
-                    highlight.setHighlighted(false);
-                highlight = target;
-                highlight.setHighlighted(true);
+    private void testMousePosHighlight() {
+        Drawable target = null;
 
+        for (Polygon polygon : polygons) {
+            target = polygon.hitTest(mousePos);
+            if (target != null)
                 break;
-            }
         }
 
-        if (!flag) {
-            for (Circle c : circles) {
-                Drawable target = c.hitTest(mousePos);
-                if (target != null) {
-                    flag = true;
-                    highlight = target;
-                    break;
-                }
-            }
-
+        if (target == null)
+            target = circleIndex.hitTest(mousePos);
 
-        }
-
-        if (!flag && highlight != null) {
-            highlight.setHighlighted(false);
-            highlight = null;
-        }
+        selectionModel.setHighlighted(target);
     }
 
     private void setSelection(Drawable sel) {
-        if (selection != null)
-            selection.setSelected(false);
+        selectionModel.set(sel);
+        selection = sel;
+        selectionChanged();
+    }
 
-        if (sel != null) {
-            selection = sel;
-            selection.setSelected(true);
-        } else {
-            selection = null;
-        }
+    // Shift-click: adds the element to the selection, or takes it out if it is already in
+    private void toggleSelection(Drawable drawable) {
+        if (drawable == null)
+            return;
+
+        if (selectionModel.isSelected(drawable))
+            selectionModel.remove(drawable);
+        else
+            selectionModel.add(drawable);
+
+        selection = selectionModel.getPrimary();
+        selectionChanged();
+    }
 
+    private void selectionChanged() {
+        handles.attach(selectionModel.size() == 1 && selection instanceof Polygon polygon ? polygon : null);
         updateSelectionInfo();
         repaint();
     }
 
     private boolean setEdgeConstraint(Edge edge, Edge.Constraint constraint) {
+        if (edge.getConstraint() == constraint)
+            return true;
+
         boolean threw = false;
         try {
-            edge.setConstraint(constraint);
+            history.perform(new ConstraintCommand(edge, constraint));
         } catch (IllegalArgumentException exc) {
             JOptionPane.showMessageDialog(this, "Constraint already assigned to neighboring edge", "Critical error", JOptionPane.ERROR_MESSAGE);
             threw = true;
@@ -149,19 +245,216 @@ public class Canvas extends JPanel implements MouseMotionListener {
     }
 
     private void deletePolygon(Polygon poly) {
-        this.polygons.remove(poly);
+        history.perform(new RemovePolygonCommand(scene, poly));
         setSelection(null);
         repaint();
     }
 
     private void splitEdge(Edge edge) {
-        setSelection(edge.divide());
+        SplitEdgeCommand command = new SplitEdgeCommand(edge);
+        history.perform(command);
+        setSelection(command.getMiddle());
         parent.polygonList.repaint();
+        hoverDirty = true;
         repaint();
     }
 
     private void deletePoint(Vertex point) {
-        setSelection(point.delete());
+        if (point.getPolygon().getSize() == 3) {
+            deletePolygon(point.getPolygon());
+            return;
+        }
+
+        DeleteVertexCommand command = new DeleteVertexCommand(point);
+        history.perform(command);
+        setSelection(command.getMergedEdge());
+        parent.polygonList.repaint();
+        repaint();
+    }
+
+    private void reorderPolygon(int from, int to) {
+        history.perform(new ReorderCommand(scene, from, to));
+        repaint();
+    }
+
+    private void bringToFront(Polygon polygon) {
+        int index = polygons.indexOf(polygon);
+        if (index > 0) {
+            reorderPolygon(index, 0);
+            parent.polygonList.setSelectedIndex(0);
+        }
+    }
+
+    private void sendToBack(Polygon polygon) {
+        int index = polygons.indexOf(polygon);
+        if (index >= 0 && index < polygons.getSize() - 1) {
+            reorderPolygon(index, polygons.getSize() - 1);
+            parent.polygonList.setSelectedIndex(polygons.getSize() - 1);
+        }
+    }
+
+    private void undo() {
+        if (!history.canUndo())
+            return;
+
+        history.undo();
+        afterHistoryStep();
+    }
+
+    private void redo() {
+        if (!history.canRedo())
+            return;
+
+        history.redo();
+        afterHistoryStep();
+    }
+
+    private void generateScene() {
+        JSpinner seed = new JSpinner(new SpinnerNumberModel(1, 0, Integer.MAX_VALUE, 1));
+        JSpinner polygonCount = new JSpinner(new SpinnerNumberModel(100, 0, 1_000_000, 10));
+        JSpinner vertexCount = new JSpinner(new SpinnerNumberModel(12, 3, 1_000_000, 1));
+        JSpinner circleCount = new JSpinner(new SpinnerNumberModel(0, 0, 100_000, 1));
+        JComboBox<SceneGenerator.Outline> outline = new JComboBox<>(SceneGenerator.Outline.values());
+        JSpinner density = new JSpinner(new SpinnerNumberModel(0.3, 0.0, 1.0, 0.05));
+
+        JPanel form = new JPanel(new GridLayout(0, 2, 5, 5));
+        form.add(new JLabel("Seed:"));
+        form.add(seed);
+        form.add(new JLabel("Polygons:"));
+        form.add(polygonCount);
+        form.add(new JLabel("Vertices per polygon:"));
+        form.add(vertexCount);
+        form.add(new JLabel("Circles:"));
+        form.add(circleCount);
+        form.add(new JLabel("Outline:"));
+        form.add(outline);
+        form.add(new JLabel("Constrained edges:"));
+        form.add(density);
+
+        if (JOptionPane.showConfirmDialog(this, form, "Generate stress scene", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION)
+            return;
+
+        SceneGenerator.Spec spec = new SceneGenerator.Spec(((Number) seed.getValue()).longValue(), (Integer) polygonCount.getValue(),
+                (Integer) vertexCount.getValue(), (Integer) circleCount.getValue(), (SceneGenerator.Outline) outline.getSelectedItem(),
+                ((Number) density.getValue()).doubleValue(), getWidth(), getHeight());
+        SceneGenerator.Generated generated = SceneGenerator.generate(spec, this::deletePolygon);
+
+        history.perform(new ReplaceSceneCommand(scene, generated.polygons(), generated.circles()));
+        history.seal();
+        afterHistoryStep();
+    }
+
+    // Writes the scene as it is now to a PNG, the canvas scaled up by the chosen factor. The export renders from a
+    // snapshot on background threads, so editing can go on meanwhile.
+    private void exportImage() {
+        JSpinner scale = new JSpinner(new SpinnerNumberModel(4.0, 0.25, 50.0, 0.25));
+        JLabel size = new JLabel();
+        Runnable updateSize = () -> {
+            double factor = ((Number) scale.getValue()).doubleValue();
+            size.setText(Math.round(getWidth() * factor) + " \u00d7 " + Math.round(getHeight() * factor) + " px");
+        };
+        scale.addChangeListener(e -> updateSize.run());
+        updateSize.run();
+
+        JPanel form = new JPanel(new GridLayout(0, 2, 5, 5));
+        form.add(new JLabel("Scale:"));
+        form.add(scale);
+        form.add(new JLabel("Image size:"));
+        form.add(size);
+        if (JOptionPane.showConfirmDialog(this, form, "Export PNG", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION)
+            return;
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("PNG images", "png"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION)
+            return;
+
+        Path file = chooser.getSelectedFile().toPath();
+        if (!file.getFileName().toString().toLowerCase().endsWith(".png"))
+            file = file.resolveSibling(file.getFileName() + ".png");
+
+        double factor = ((Number) scale.getValue()).doubleValue();
+        SceneExporter.Settings settings = new SceneExporter.Settings((int) Math.round(getWidth() * factor),
+                (int) Math.round(getHeight() * factor), factor, renderer.getOffset());
+        SceneSnapshot snapshot = snapshots.publish();
+
+        ProgressMonitor monitor = new ProgressMonitor(this, "Exporting " + file.getFileName(), null, 0, 100);
+        monitor.setMillisToDecideToPopup(0);
+        Path target = file;
+        // The monitor belongs to the EDT; the exporter only sees the flag the EDT copies its cancel button into
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Thread exporter = new Thread(() -> {
+            try {
+                SceneExporter.export(snapshot, settings, target, (done, total) -> {
+                    SwingUtilities.invokeLater(() -> {
+                        monitor.setProgress(100 * done / total);
+                        if (monitor.isCanceled())
+                            cancelled.set(true);
+                    });
+                    return !cancelled.get();
+                });
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, "Could not export the image: " + e.getMessage(),
+                        "Export PNG", JOptionPane.ERROR_MESSAGE));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                SwingUtilities.invokeLater(monitor::close);
+            }
+        }, "png-export");
+        exporter.setDaemon(true);
+        exporter.start();
+    }
+
+    // Runs a batch ring edit on every selected polygon, with the parameter asked for first
+    private void editSelectedPolygons(RingEditCommand.Kind kind, String title, String label, SpinnerNumberModel parameter) {
+        List<Polygon> targets = new ArrayList<>();
+        for (Drawable drawable : selectionModel.getSelected()) {
+            if (drawable instanceof Polygon polygon)
+                targets.add(polygon);
+        }
+
+        if (targets.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Select a polygon first", title, JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        JSpinner spinner = new JSpinner(parameter);
+        JPanel form = new JPanel(new GridLayout(0, 2, 5, 5));
+        form.add(new JLabel(label));
+        form.add(spinner);
+        if (JOptionPane.showConfirmDialog(this, form, title, JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION)
+            return;
+
+        int before = 0, after = 0;
+        history.seal();
+        for (Polygon polygon : targets) {
+            before += polygon.getSize();
+            history.perform(new RingEditCommand(polygon, kind, ((Number) spinner.getValue()).doubleValue()));
+            after += polygon.getSize();
+        }
+        history.seal();
+
+        // Selected edges and vertices may be gone from the rings now; keep only the polygons
+        selectionModel.set(null);
+        for (Polygon polygon : targets) {
+            selectionModel.add(polygon);
+        }
+        selection = selectionModel.getPrimary();
+        selectionChanged();
+        parent.polygonList.repaint();
+
+        if (kind != RingEditCommand.Kind.SUBDIVIDE) {
+            String report = String.format("Vertices: %d \u2192 %d (%d removed, %.1f%%)", before, after, before - after, 100.0 * (before - after) / before);
+            JOptionPane.showMessageDialog(this, report, title, JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    private void afterHistoryStep() {
+        // the selected object may have just been unlinked from the scene
+        setSelection(null);
+        parent.polygonList.clearSelection();
         parent.polygonList.repaint();
         repaint();
     }
@@ -171,11 +464,14 @@ public class Canvas extends JPanel implements MouseMotionListener {
      */
     private void setupLayout() {
         parent.polygonList.setModel(polygons);
+        parent.polygonList.setTransferHandler(new ListItemTransferHandler(this::reorderPolygon));
         parent.polygonList.addListSelectionListener(e -> setSelection(parent.polygonList.getSelectedValue()));
 
         parent.polygonColor.addColorChangedListener(c -> {
-            if (selection instanceof Polygon p)
-                p.setColor(c);
+            if (selection instanceof Polygon p && !c.equals(p.getColor())) {
+                history.perform(new ColorCommand(p, c));
+                parent.polygonList.repaint();
+            }
 
             repaint();
         });
@@ -207,27 +503,40 @@ public class Canvas extends JPanel implements MouseMotionListener {
 
         parent.builtInRadioButton.addActionListener(e -> {
             DrawUtils.lineAlgorithm = DrawUtils.LineAlgorithm.BUILTIN;
+            renderer.updateRasterizer();
+            renderer.invalidate();
             repaint();
         });
 
         parent.bresenhamRadioButton.addActionListener(e -> {
             DrawUtils.lineAlgorithm = DrawUtils.LineAlgorithm.BRESENHAM;
+            renderer.updateRasterizer();
+            renderer.invalidate();
+            repaint();
+        });
+
+        parent.wuRadioButton.addActionListener(e -> {
+            DrawUtils.lineAlgorithm = DrawUtils.LineAlgorithm.WU;
+            renderer.updateRasterizer();
+            renderer.invalidate();
             repaint();
         });
 
         parent.offsetSlider.addChangeListener(e -> {
-            offset = parent.offsetSlider.getValue();
+            renderer.setOffset(parent.offsetSlider.getValue());
             repaint();
         });
 
         parent.clearButton.addActionListener(e -> {
-            polygons.clear();
+            if (polygons.getSize() > 0)
+                history.perform(new ClearCommand(scene));
+            setSelection(null);
             repaint();
         });
 
         parent.radiusSlider.addChangeListener(e -> {
-            if(selection instanceof Circle c) {
-                c.setRadius(parent.radiusSlider.getValue());
+            if(selection instanceof Circle c && c.getRadius() != parent.radiusSlider.getValue()) {
+                history.perform(new RadiusCommand(c, parent.radiusSlider.getValue()));
                 repaint();
             }
         });
@@ -235,6 +544,9 @@ public class Canvas extends JPanel implements MouseMotionListener {
         addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
+                history.seal();
+                // A click acts on what is under the mouse now, even if no frame has been drawn since it got there
+                resolveHover();
                 if (SwingUtilities.isLeftMouseButton(e))
                     onLMBPressed(e);
                 else if (SwingUtilities.isMiddleMouseButton(e))
@@ -242,10 +554,47 @@ public class Canvas extends JPanel implements MouseMotionListener {
                 else if (SwingUtilities.isRightMouseButton(e))
                     onRMBPressed(e);
             }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                dragging = false;
+                if (handles.isActive())
+                    endTransform();
+
+                if (dragOffset != null) {
+                    dragOffset = null;
+                    snapTarget = null;
+                    repaint();
+                }
+            }
         });
 
         addMouseMotionListener(this);
         setKeyBindings();
+
+        parent.undoMenuItem.addActionListener(e -> undo());
+        parent.redoMenuItem.addActionListener(e -> redo());
+        parent.generateSceneMenuItem.addActionListener(e -> generateScene());
+        parent.exportImageMenuItem.addActionListener(e -> exportImage());
+        parent.subdivideMenuItem.addActionListener(e -> editSelectedPolygons(RingEditCommand.Kind.SUBDIVIDE,
+                "Subdivide edges", "New vertices per edge:", new SpinnerNumberModel(1, 1, 64, 1)));
+        parent.thinMenuItem.addActionListener(e -> editSelectedPolygons(RingEditCommand.Kind.THIN,
+                "Remove close vertices", "Minimum distance:", new SpinnerNumberModel(5.0, 0.0, 1000.0, 0.5)));
+        parent.simplifyMenuItem.addActionListener(e -> editSelectedPolygons(RingEditCommand.Kind.SIMPLIFY,
+                "Simplify", "Minimum triangle area (px\u00b2):", new SpinnerNumberModel(20.0, 0.0, 1_000_000.0, 5.0)));
+        parent.progressiveRenderingMenuItem.addActionListener(e -> {
+            progressiveRendering = parent.progressiveRenderingMenuItem.isSelected();
+            renderer.invalidate();
+            repaint();
+        });
+        parent.activeRenderingMenuItem.addActionListener(e -> setActiveRendering(parent.activeRenderingMenuItem.isSelected()));
+        parent.softwareRenderingMenuItem.addActionListener(e -> setSoftwareRendering(parent.softwareRenderingMenuItem.isSelected()));
+        ActionListener fillListener = e -> setFillMode(parent.fillPolygonsMenuItem.isSelected(), parent.fillOffsetsMenuItem.isSelected());
+        parent.fillPolygonsMenuItem.addActionListener(fillListener);
+        parent.fillOffsetsMenuItem.addActionListener(fillListener);
+        parent.snapToVerticesMenuItem.addActionListener(e -> snapIndex.setSnapToVertices(parent.snapToVerticesMenuItem.isSelected()));
+        parent.snapToEdgesMenuItem.addActionListener(e -> snapIndex.setSnapToEdges(parent.snapToEdgesMenuItem.isSelected()));
+        parent.snapToGridMenuItem.addActionListener(e -> snapIndex.setGridSize(parent.snapToGridMenuItem.isSelected() ? SNAP_GRID_SIZE : 0));
     }
 
     private void setKeyBindings() {
@@ -272,10 +621,26 @@ public class Canvas extends JPanel implements MouseMotionListener {
         inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_H, 0), Edge.Constraint.HORIZONTAL);
         inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_C, 0), Edge.Constraint.NONE);
         inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_DELETE, 0), "DEL");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_UP, 0), "FRONT");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_PAGE_DOWN, 0), "BACK");
 
         actionMap.put(Edge.Constraint.VERTICAL, new ConstraintAction(Edge.Constraint.VERTICAL));
         actionMap.put(Edge.Constraint.HORIZONTAL, new ConstraintAction(Edge.Constraint.HORIZONTAL));
         actionMap.put(Edge.Constraint.NONE, new ConstraintAction(Edge.Constraint.NONE));
+        actionMap.put("FRONT", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (selection instanceof Polygon poly)
+                    bringToFront(poly);
+            }
+        });
+        actionMap.put("BACK", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (selection instanceof Polygon poly)
+                    sendToBack(poly);
+            }
+        });
         actionMap.put("DEL", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
@@ -283,50 +648,246 @@ public class Canvas extends JPanel implements MouseMotionListener {
                     deletePoint(point);
                 }
 
-                if (selection instanceof Polygon poly) {
-                    deletePolygon(poly);
+                // Every selected polygon goes, not only the primary one
+                for (Drawable drawable : List.copyOf(selectionModel.getSelected())) {
+                    if (drawable instanceof Polygon poly && polygons.indexOf(poly) >= 0)
+                        deletePolygon(poly);
                 }
             }
         });
     }
 
+    /*
+     * Rendering
+     */
+    public void setActiveRendering(boolean active) {
+        if (active == (renderLoop != null))
+            return;
+
+        if (active) {
+            renderLoop = new RenderLoop(this, TARGET_FPS);
+            frameRequested = true;
+            renderLoop.start();
+        } else {
+            renderLoop.stop();
+            renderLoop = null;
+            backBuffer = null;
+            super.repaint();
+        }
+    }
+
+    public void setSoftwareRendering(boolean software) {
+        renderer.setSoftwareRendering(software);
+        repaint();
+    }
+
+    public void setFillMode(boolean polygons, boolean offsets) {
+        renderer.setFillMode(polygons, offsets);
+        repaint();
+    }
+
+    boolean hasPendingFrame() {
+        return frameRequested;
+    }
+
+    // Runs on the EDT, called by the render loop at most once per frame
+    void renderFrame() {
+        frameRequested = false;
+        if (renderLoop == null || !isShowing())
+            return;
+
+        resolveHover();
+
+        do {
+            GraphicsConfiguration configuration = getGraphicsConfiguration();
+            if (backBuffer == null || backBuffer.getWidth() != getWidth() || backBuffer.getHeight() != getHeight()
+                    || backBuffer.validate(configuration) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                backBuffer = createVolatileImage(getWidth(), getHeight());
+                if (backBuffer == null)
+                    return;
+            }
+
+            Graphics2D g = backBuffer.createGraphics();
+            render(g);
+            g.dispose();
+
+            Graphics screen = getGraphics();
+            if (screen != null) {
+                screen.drawImage(backBuffer, 0, 0, null);
+                screen.dispose();
+                Toolkit.getDefaultToolkit().sync();
+            }
+        } while (backBuffer.contentsLost());
+    }
+
+    private void requestFrame() {
+        frameRequested = true;
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
-        Graphics2D graphics2d = (Graphics2D) g;
+        if (renderLoop != null && backBuffer != null && !backBuffer.contentsLost()
+                && backBuffer.getWidth() == getWidth() && backBuffer.getHeight() == getHeight()) {
+            // Exposed or resized by Swing: show the last frame, the loop brings it up to date
+            g.drawImage(backBuffer, 0, 0, null);
+            requestFrame();
+            return;
+        }
 
+        resolveHover();
+        render((Graphics2D) g);
+    }
+
+    private void render(Graphics2D graphics2d) {
+        if (renderer.usesRasterizer())
+            renderSoftware(graphics2d);
+        else if (progressiveRendering)
+            renderProgressive(graphics2d);
+        else
+            renderJava2D(graphics2d);
 
-        graphics2d.setColor(Color.WHITE);
-        graphics2d.fillRect(0, 0, getWidth(), getHeight());
+        graphics2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        handles.paint(graphics2d);
+        if (snapTarget != null)
+            DrawUtils.drawSnapTarget(graphics2d, snapTarget);
+    }
+
+    private void renderJava2D(Graphics2D graphics2d) {
+        renderer.paintBackground(graphics2d, getWidth(), getHeight());
         graphics2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
         if (circleMiddle != null) {
             DrawUtils.drawWuCirlce(graphics2d, circleMiddle, (int) Math.round(circleMiddle.distance(mousePos)));
         }
 
-        for (Circle c : circles) {
-            c.draw(graphics2d);
-        }
+        renderer.paintCircles(graphics2d);
 
         graphics2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics2d.setColor(Color.BLACK);
 
+        if (!drawing.isEmpty())
+            DrawUtils.drawPolygonalChain(graphics2d, drawing, rubberBandEnd(), chainCrossings());
 
-        graphics2d.setColor(Color.BLACK);
+        renderer.paintPolygons(graphics2d);
+    }
+
+    private void renderProgressive(Graphics2D graphics2d) {
+        boolean complete = renderer.paintProgressive(graphics2d, getWidth(), getHeight(), owningPolygon(selection), markedPolygons(),
+                PROGRESSIVE_BUDGET_NANOS, this::paintPreviews);
+        if (!complete) {
+            // Carry on from where this frame stopped
+            SwingUtilities.invokeLater(this::repaint);
+        }
+    }
+
+    private void paintPreviews(Graphics2D graphics2d) {
+        graphics2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        if (circleMiddle != null) {
+            DrawUtils.drawWuCirlce(graphics2d, circleMiddle, (int) Math.round(circleMiddle.distance(mousePos)));
+        }
 
+        graphics2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics2d.setColor(Color.BLACK);
         if (!drawing.isEmpty())
-            DrawUtils.drawPolygonalChain(graphics2d, drawing, drawing.getFirst().distance(mousePos) <= GeometryUtils.POINT_RADIUS ? null : mousePos);
+            DrawUtils.drawPolygonalChain(graphics2d, drawing, rubberBandEnd(), chainCrossings());
+    }
 
-        for (ListIterator<Polygon> it = polygons.listIterator(polygons.getSize()); it.hasPrevious(); ) {
-            Polygon polygon = it.previous();
+    // Polygons owning the selection or the hover, front first
+    private List<Polygon> markedPolygons() {
+        Polygon hovered = owningPolygon(selectionModel.getHighlighted());
+        if (selectionModel.size() == 0)
+            return hovered == null ? List.of() : List.of(hovered);
+
+        Set<Polygon> owners = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (hovered != null)
+            owners.add(hovered);
+        for (Drawable drawable : selectionModel.getSelected()) {
+            Polygon owner = owningPolygon(drawable);
+            if (owner != null)
+                owners.add(owner);
+        }
+
+        List<Polygon> overlay = new ArrayList<>(owners);
+        overlay.sort(Comparator.comparingInt(polygons::indexOf));
+        return overlay;
+    }
+
+    private static Polygon owningPolygon(Drawable drawable) {
+        if (drawable instanceof Polygon polygon)
+            return polygon;
+        if (drawable instanceof Edge edge)
+            return edge.getPolygon();
+        if (drawable instanceof Vertex vertex)
+            return vertex.getPolygon();
+        return null;
+    }
+
+    // Where the chain being drawn ends in the preview: at the snapped mouse, or nowhere when the next click closes it
+    private Point rubberBandEnd() {
+        return drawing.getFirst().distance(mousePos) <= GeometryUtils.POINT_RADIUS ? null : drawCursor;
+    }
 
-            polygon.drawOffset(graphics2d, offset);
-            polygon.draw(graphics2d);
+    // The point moved onto whatever it snaps to, remembering the target for the preview; Alt turns snapping off
+    private Point snap(Point point, Vertex ignored, boolean disabled) {
+        snapTarget = disabled ? null : snapIndex.snap(point, ignored);
+        if (snapTarget == null)
+            return point;
+
+        return new Point((int) Math.round(snapTarget.point().getX()), (int) Math.round(snapTarget.point().getY()));
+    }
+
+    // Where the chain being drawn crosses itself, counting the rubber band to the mouse, or the closing segment when
+    // the mouse is over the first point
+    private List<Point2D> chainCrossings() {
+        List<Point2D> crossings = new ArrayList<>(drawingIndex.getCrossings());
+        Point end = rubberBandEnd();
+        if (end == null)
+            end = drawing.getFirst();
+        drawingIndex.findCrossings(new Segment(drawing.getLast(), end), crossings);
+        return crossings;
+    }
+
+    private void renderSoftware(Graphics2D graphics2d) {
+        DisplayList displayList = renderer.beginFrame();
+        if (circleMiddle != null)
+            displayList.wuCircle(circleMiddle.x, circleMiddle.y, (int) Math.round(circleMiddle.distance(mousePos)));
+
+        renderer.addCircles(displayList);
+
+        if (!drawing.isEmpty()) {
+            for (Segment segment : GeometryUtils.buildLineList(drawing, rubberBandEnd())) {
+                displayList.disc((int) segment.getFrom().getX(), (int) segment.getFrom().getY(), GeometryUtils.POINT_RADIUS, Color.BLACK);
+                displayList.line((int) segment.getFrom().getX(), (int) segment.getFrom().getY(), (int) segment.getTo().getX(), (int) segment.getTo().getY(), Color.BLACK);
+            }
+
+            for (Point2D crossing : chainCrossings()) {
+                displayList.overlay(g -> DrawUtils.drawCrossing(g, crossing));
+            }
         }
+
+        renderer.addPolygons(displayList);
+        renderer.finishFrame(graphics2d, getWidth(), getHeight());
     }
 
     public void onLMBPressed(MouseEvent e) {
         lastDrag = e.getPoint();
         switch (canvasState) {
             case IDLE -> {
-                setSelection(highlight);
+                TransformHandles.Handle handle = handles.hitTest(e.getPoint());
+                if (handle != null) {
+                    handles.begin(handle, e.getPoint());
+                    return;
+                }
+
+                if (e.isShiftDown()) {
+                    toggleSelection(selectionModel.getHighlighted());
+                    return;
+                }
+
+                setSelection(selectionModel.getHighlighted());
+
+                // A dragged vertex keeps the offset it was grabbed at, and snaps from there
+                if (selection instanceof Vertex vertex)
+                    dragOffset = new Point((int) vertex.getX() - e.getX(), (int) vertex.getY() - e.getY());
 
                 if (selection instanceof Polygon poly) {
                     parent.polygonList.setSelectedValue(poly, true);
@@ -337,19 +898,23 @@ public class Canvas extends JPanel implements MouseMotionListener {
             case DRAW -> {
                 if (drawing.getFirst().distance(e.getPoint()) <= GeometryUtils.POINT_RADIUS) {
                     if (drawing.size() > 2) {
-                        polygons.addFirst(new Polygon(drawing, Color.getHSBColor(random.nextFloat(), 1.0f, 0.75f), this::deletePolygon));
+                        history.perform(new AddPolygonCommand(scene, new Polygon(drawing, Color.getHSBColor(random.nextFloat(), 1.0f, 0.75f), this::deletePolygon)));
                         drawing = new LinkedList<>();
+                        drawingIndex.clear();
+                        snapTarget = null;
                         canvasState = State.IDLE;
                     }
                 } else {
-                    drawing.add(e.getPoint());
+                    Point point = snap(e.getPoint(), null, e.isAltDown());
+                    drawing.add(point);
+                    drawingIndex.add(point);
                 }
 
                 repaint();
             }
             case DRAW_CIRCLE -> {
                 Circle c = new Circle(circleMiddle, (int) circleMiddle.distance(mousePos));
-                circles.add(c);
+                history.perform(new AddCircleCommand(scene, c));
                 circleMiddle = null;
                 canvasState = State.IDLE;
                 repaint();
@@ -373,7 +938,10 @@ public class Canvas extends JPanel implements MouseMotionListener {
                     circleMiddle = e.getPoint();
                 } else {
                     canvasState = State.DRAW;
-                    drawing.add(e.getPoint());
+                    Point point = snap(e.getPoint(), null, e.isAltDown());
+                    drawing.add(point);
+                    drawingIndex.add(point);
+                    drawCursor = point;
                 }
 
                 repaint();
@@ -386,8 +954,23 @@ public class Canvas extends JPanel implements MouseMotionListener {
     @Override
     public void mouseDragged(MouseEvent e) {
         mousePos = e.getPoint();
+        dragging = true;
 
         if (canvasState == State.DRAW) {
+            drawCursor = snap(mousePos, null, e.isAltDown());
+            repaint();
+            return;
+        }
+
+        if (handles.isActive()) {
+            AffineTransform step = handles.drag(mousePos, e.isShiftDown());
+            if (!step.isIdentity()) {
+                Polygon polygon = handles.getPolygon();
+                if (transformStart == null)
+                    transformStart = polygon.captureRing();
+                history.perform(new TransformCommand(polygon, transformStart, step));
+            }
+
             repaint();
             return;
         }
@@ -395,20 +978,45 @@ public class Canvas extends JPanel implements MouseMotionListener {
         if (selection == null) return;
 
         Point now = e.getPoint();
-        selection.move(now.x - lastDrag.x, now.y - lastDrag.y);
+        if (selection instanceof Vertex vertex && dragOffset != null) {
+            Point target = snap(new Point(now.x + dragOffset.x, now.y + dragOffset.y), vertex, e.isAltDown());
+            int dx = target.x - (int) vertex.getX();
+            int dy = target.y - (int) vertex.getY();
+            if (dx != 0 || dy != 0)
+                history.perform(new MoveCommand(vertex, dx, dy));
+
+            lastDrag = now;
+            repaint();
+            return;
+        }
+
+        history.perform(new MoveCommand(selection, now.x - lastDrag.x, now.y - lastDrag.y));
         lastDrag = now;
-        super.repaint();
+        repaint();
     }
 
     @Override
     public void mouseMoved(MouseEvent e) {
+        if (e.getPoint().equals(mousePos))
+            return;
+
         mousePos = e.getPoint();
+        if (canvasState != State.DRAW)
+            hoverDirty = true;
+        else
+            drawCursor = snap(mousePos, null, e.isAltDown());
 
-        if (canvasState == State.DRAW) {
-            super.repaint();
-            return;
-        }
+        repaint();
+    }
+
+    // Bakes the gesture into the vertices, once, now that the mouse is let go
+    private void endTransform() {
+        Polygon polygon = handles.getPolygon();
+        if (handles.end())
+            history.perform(TransformCommand.bake(polygon, transformStart));
 
+        transformStart = null;
+        hoverDirty = true;
         repaint();
     }
 
@@ -443,8 +1051,9 @@ public class Canvas extends JPanel implements MouseMotionListener {
 
     @Override
     public void repaint() {
-        if (polygons != null)
-            testMousePosHighlight();
-        super.repaint();
+        if (renderLoop != null)
+            requestFrame();
+        else
+            super.repaint();
     }
 }
\ No newline at end of file
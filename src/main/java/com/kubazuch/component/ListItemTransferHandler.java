@@ -10,16 +10,20 @@ import java.awt.datatransfer.UnsupportedFlavorException;
 import java.awt.dnd.DragSource;
 import java.io.IOException;
 import java.util.Objects;
+import java.util.function.BiConsumer;
 
 // https://stackoverflow.com/questions/16586562/reordering-jlist-with-drag-and-drop
 public class ListItemTransferHandler extends TransferHandler {
 	protected final DataFlavor localObjectFlavor;
 	protected int index = -1;
 	protected int addIndex = -1;
+	private final BiConsumer<Integer, Integer> reorderHandler;
 
-	public ListItemTransferHandler() {
+	// The handler receives the index the item is taken from and the index it should end up at
+	public ListItemTransferHandler(BiConsumer<Integer, Integer> reorderHandler) {
 		super();
 		localObjectFlavor = new DataFlavor(Polygon.class, "Polygon");
+		this.reorderHandler = reorderHandler;
 	}
 
 	@Override
@@ -79,12 +83,20 @@ public class ListItemTransferHandler extends TransferHandler {
 		index = index < 0 ? max : index; // If it is out of range, it is appended to the end
 		index = Math.min(index, max);
 
-		addIndex = index;
+		if (this.index < 0)
+			return false;
+
+		// The dragged item is removed first, so drop locations behind it shift by one
+		addIndex = this.index < index ? index - 1 : index;
 
 		try {
 			Polygon value = (Polygon) info.getTransferable().getTransferData(localObjectFlavor);
-			listModel.add(index, value);
-			target.addSelectionInterval(index, index);
+			if (listModel.getElementAt(this.index) != value)
+				return false;
+
+			if (addIndex != this.index)
+				reorderHandler.accept(this.index, addIndex);
+			target.setSelectedIndex(addIndex);
 			return true;
 		} catch (UnsupportedFlavorException | IOException ex) {
 			ex.printStackTrace();
@@ -96,20 +108,10 @@ public class ListItemTransferHandler extends TransferHandler {
 	@Override
 	protected void exportDone(JComponent c, Transferable data, int action) {
 		c.getRootPane().getGlassPane().setVisible(false);
-		cleanup(c, action == MOVE);
+		cleanup();
 	}
 
-	@SuppressWarnings("unchecked")
-	private void cleanup(JComponent c, boolean remove) {
-		if (remove && index >= 0) {
-			if(index >= addIndex)
-				index++;
-
-			JList<Polygon> source = (JList<Polygon>) c;
-			BetterListModel<Polygon> model = (BetterListModel<Polygon>) source.getModel();
-			model.remove(index);
-		}
-
+	private void cleanup() {
 		index = -1;
 		addIndex = -1;
 	}
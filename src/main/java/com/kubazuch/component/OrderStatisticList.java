@@ -0,0 +1,471 @@
+package com.kubazuch.component;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+// List kept as an implicit treap: positional access, inserts, removals and moves are O(log n). Every node is also
+// indexed by its element (by identity) and knows its parent, so indexOf climbs to the root in O(log n) instead of
+// scanning. Elements must therefore be distinct.
+class OrderStatisticList<E> extends AbstractList<E> {
+    private static final class Node<E> {
+        E value;
+        final int priority;
+        Node<E> left, right, parent;
+        int size = 1;
+
+        Node(E value, int priority) {
+            this.value = value;
+            this.priority = priority;
+        }
+    }
+
+    private final Map<E, Node<E>> nodes = new IdentityHashMap<>();
+    private final Random random = new Random();
+    private Node<E> root;
+
+    // Results of split(); kept in fields to avoid allocating a pair on every level of the recursion
+    private Node<E> splitLeft, splitRight;
+
+    @Override
+    public int size() {
+        return size(root);
+    }
+
+    @Override
+    public E get(int index) {
+        Objects.checkIndex(index, size());
+        return nodeAt(index).value;
+    }
+
+    @Override
+    public E set(int index, E element) {
+        Objects.checkIndex(index, size());
+        Node<E> node = nodeAt(index);
+        if (node.value == element)
+            return element;
+
+        requireAbsent(element);
+        E old = node.value;
+        nodes.remove(old);
+        node.value = element;
+        nodes.put(element, node);
+        return old;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        Objects.checkIndex(index, size() + 1);
+        requireAbsent(element);
+
+        Node<E> node = new Node<>(element, random.nextInt());
+        nodes.put(element, node);
+        insert(index, node);
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        Objects.checkIndex(index, size());
+        Node<E> node = nodeAt(index);
+        detach(node);
+        nodes.remove(node.value);
+        modCount++;
+        return node.value;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        Node<E> node = nodes.get(o);
+        return node == null ? -1 : rank(node);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return indexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return nodes.containsKey(o);
+    }
+
+    // Takes the element at from out and puts it back so that it ends up at index to
+    public void move(int from, int to) {
+        Objects.checkIndex(from, size());
+        Objects.checkIndex(to, size());
+        if (from == to)
+            return;
+
+        Node<E> node = nodeAt(from);
+        detach(node);
+        node.left = node.right = node.parent = null;
+        node.size = 1;
+        insert(to, node);
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends E> collection) {
+        Objects.checkIndex(index, size() + 1);
+        if (collection.isEmpty())
+            return false;
+
+        Set<E> distinct = Collections.newSetFromMap(new IdentityHashMap<>(collection.size()));
+        for (E element : collection) {
+            requireAbsent(element);
+            if (!distinct.add(element))
+                throw new IllegalArgumentException("Element is added twice");
+        }
+
+        List<Node<E>> added = new ArrayList<>(collection.size());
+        for (E element : collection) {
+            Node<E> node = new Node<>(element, random.nextInt());
+            nodes.put(element, node);
+            added.add(node);
+        }
+
+        split(root, index);
+        Node<E> left = splitLeft, right = splitRight;
+        root = merge(merge(left, build(added)), right);
+        root.parent = null;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        List<Node<E>> kept = new ArrayList<>(size());
+        boolean removed = false;
+
+        for (Node<E> node = first(); node != null; node = successor(node)) {
+            if (filter.test(node.value)) {
+                nodes.remove(node.value);
+                removed = true;
+            } else {
+                kept.add(node);
+            }
+        }
+
+        if (!removed)
+            return false;
+
+        for (Node<E> node : kept) {
+            node.left = node.right = node.parent = null;
+            node.size = 1;
+        }
+        root = build(kept);
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        nodes.clear();
+        modCount++;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr(0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator() {
+        return new Itr(0);
+    }
+
+    @Override
+    public ListIterator<E> listIterator(int index) {
+        Objects.checkIndex(index, size() + 1);
+        return new Itr(index);
+    }
+
+    /*
+     * Treap internals
+     */
+
+    private void requireAbsent(E element) {
+        if (nodes.containsKey(element))
+            throw new IllegalArgumentException("Element is already in the list");
+    }
+
+    private void insert(int index, Node<E> node) {
+        split(root, index);
+        Node<E> left = splitLeft, right = splitRight;
+        root = merge(merge(left, node), right);
+        root.parent = null;
+    }
+
+    // Replaces the node by the merge of its subtrees; priorities in there are not higher than the node's own,
+    // so the heap order towards the parent still holds
+    private void detach(Node<E> node) {
+        Node<E> parent = node.parent;
+        Node<E> replacement = merge(node.left, node.right);
+        if (replacement != null)
+            replacement.parent = parent;
+
+        if (parent == null)
+            root = replacement;
+        else if (parent.left == node)
+            parent.left = replacement;
+        else
+            parent.right = replacement;
+
+        for (Node<E> n = parent; n != null; n = n.parent) {
+            n.size--;
+        }
+    }
+
+    private Node<E> nodeAt(int index) {
+        Node<E> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    private int rank(Node<E> node) {
+        int rank = size(node.left);
+        while (node.parent != null) {
+            if (node == node.parent.right)
+                rank += size(node.parent.left) + 1;
+            node = node.parent;
+        }
+        return rank;
+    }
+
+    // Splits the tree into its first k elements (splitLeft) and the remaining ones (splitRight)
+    private void split(Node<E> tree, int k) {
+        if (tree == null) {
+            splitLeft = splitRight = null;
+            return;
+        }
+
+        if (size(tree.left) < k) {
+            split(tree.right, k - size(tree.left) - 1);
+            tree.right = splitLeft;
+            if (splitLeft != null)
+                splitLeft.parent = tree;
+            update(tree);
+            splitLeft = tree;
+        } else {
+            split(tree.left, k);
+            tree.left = splitRight;
+            if (splitRight != null)
+                splitRight.parent = tree;
+            update(tree);
+            splitRight = tree;
+        }
+
+        tree.parent = null;
+    }
+
+    private Node<E> merge(Node<E> a, Node<E> b) {
+        if (a == null)
+            return b;
+        if (b == null)
+            return a;
+
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            a.right.parent = a;
+            update(a);
+            return a;
+        } else {
+            b.left = merge(a, b.left);
+            b.left.parent = b;
+            update(b);
+            return b;
+        }
+    }
+
+    // Builds a treap over detached nodes in the given order in O(n), as a Cartesian tree on their priorities
+    private Node<E> build(List<Node<E>> order) {
+        Deque<Node<E>> spine = new ArrayDeque<>();
+        for (Node<E> node : order) {
+            Node<E> last = null;
+            while (!spine.isEmpty() && spine.peekLast().priority < node.priority) {
+                last = spine.removeLast();
+            }
+
+            node.left = last;
+            if (last != null)
+                last.parent = node;
+
+            if (!spine.isEmpty()) {
+                spine.peekLast().right = node;
+                node.parent = spine.peekLast();
+            } else {
+                node.parent = null;
+            }
+            spine.addLast(node);
+        }
+
+        if (spine.isEmpty())
+            return null;
+
+        Node<E> top = spine.peekFirst();
+        computeSizes(top);
+        return top;
+    }
+
+    private static <E> void computeSizes(Node<E> top) {
+        // Children have to be sized before their parents
+        Deque<Node<E>> stack = new ArrayDeque<>();
+        Deque<Node<E>> order = new ArrayDeque<>();
+        stack.push(top);
+        while (!stack.isEmpty()) {
+            Node<E> node = stack.pop();
+            order.push(node);
+            if (node.left != null)
+                stack.push(node.left);
+            if (node.right != null)
+                stack.push(node.right);
+        }
+
+        for (Node<E> node : order) {
+            update(node);
+        }
+    }
+
+    private static <E> void update(Node<E> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static <E> int size(Node<E> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private Node<E> first() {
+        Node<E> node = root;
+        if (node == null)
+            return null;
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private Node<E> last() {
+        Node<E> node = root;
+        if (node == null)
+            return null;
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    private static <E> Node<E> successor(Node<E> node) {
+        if (node.right != null) {
+            node = node.right;
+            while (node.left != null) {
+                node = node.left;
+            }
+            return node;
+        }
+
+        while (node.parent != null && node == node.parent.right) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    private static <E> Node<E> predecessor(Node<E> node) {
+        if (node.left != null) {
+            node = node.left;
+            while (node.right != null) {
+                node = node.right;
+            }
+            return node;
+        }
+
+        while (node.parent != null && node == node.parent.left) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    // Walks the tree by successor/predecessor links, so a full pass costs O(n) rather than O(n log n)
+    private class Itr implements ListIterator<E> {
+        private Node<E> next;
+        private int nextIndex;
+        private int expectedModCount = modCount;
+
+        Itr(int index) {
+            this.nextIndex = index;
+            this.next = index == size() ? null : nodeAt(index);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextIndex < size();
+        }
+
+        @Override
+        public E next() {
+            checkForComodification();
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            Node<E> ret = next;
+            next = successor(next);
+            nextIndex++;
+            return ret.value;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return nextIndex > 0;
+        }
+
+        @Override
+        public E previous() {
+            checkForComodification();
+            if (!hasPrevious())
+                throw new NoSuchElementException();
+
+            next = next == null ? last() : predecessor(next);
+            nextIndex--;
+            return next.value;
+        }
+
+        @Override
+        public int nextIndex() {
+            return nextIndex;
+        }
+
+        @Override
+        public int previousIndex() {
+            return nextIndex - 1;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void set(E e) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(E e) {
+            throw new UnsupportedOperationException();
+        }
+
+        private void checkForComodification() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+    }
+}
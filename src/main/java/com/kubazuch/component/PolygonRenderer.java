@@ -4,17 +4,52 @@ import com.kubazuch.geometry.Polygon;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
 
+// Renders only what is on screen: the list gets a fixed cell size, so Swing never measures off-screen rows, and
+// labels and swatches are built the first time a row becomes visible and reused until the polygon changes.
 public class PolygonRenderer extends JLabel implements ListCellRenderer<Polygon> {
+	private static final String PROTOTYPE_LABEL = "Polygon 0000000 (0000000 edges)";
+	private static final int ICON_CACHE_SIZE = 256;
+
+	private static class Row {
+		int size = -1;
+		String label;
+	}
+
+	private final Map<Polygon, Row> rows = new WeakHashMap<>();
+	private final Map<Color, ColorIcon> icons = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Color, ColorIcon> eldest) {
+			return size() > ICON_CACHE_SIZE;
+		}
+	};
 
 	public PolygonRenderer() {
 		setOpaque(true);
 	}
 
+	public void install(JList<Polygon> list) {
+		list.setCellRenderer(this);
+
+		setText(PROTOTYPE_LABEL);
+		setIcon(new ColorIcon(Color.BLACK));
+		list.setFixedCellHeight(getPreferredSize().height);
+		list.setFixedCellWidth(getPreferredSize().width);
+	}
+
 	@Override
 	public Component getListCellRendererComponent(JList<? extends Polygon> list, Polygon value, int index, boolean isSelected, boolean cellHasFocus) {
-		setIcon(new ColorIcon(value.getColor()));
-		setText(value.toString());
+		Row row = rows.computeIfAbsent(value, p -> new Row());
+		if (row.size != value.getSize()) {
+			row.size = value.getSize();
+			row.label = value.toString();
+		}
+
+		setIcon(icons.computeIfAbsent(value.getColor(), ColorIcon::new));
+		setText(row.label);
 
 		setBackground(isSelected ? list.getSelectionBackground() : list.getBackground());
 		setForeground(isSelected ? list.getSelectionForeground() : list.getForeground());
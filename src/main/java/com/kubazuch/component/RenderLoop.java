@@ -0,0 +1,58 @@
+package com.kubazuch.component;
+
+import javax.swing.*;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Paces frames for Canvas's active rendering mode. Input handlers only record what changed; once per frame
+// period this thread hands the pending frame to the EDT, which owns the geometry, and waits for it to be drawn.
+// A slow frame delays the next one instead of queueing up more.
+public class RenderLoop implements Runnable {
+    private final Canvas canvas;
+    private final long frameNanos;
+    private final Thread thread;
+    private volatile boolean running;
+
+    public RenderLoop(Canvas canvas, int framesPerSecond) {
+        this.canvas = canvas;
+        this.frameNanos = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+        this.thread = new Thread(this, "render-loop");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    @Override
+    public void run() {
+        long next = System.nanoTime();
+
+        while (running) {
+            if (canvas.hasPendingFrame()) {
+                try {
+                    SwingUtilities.invokeAndWait(canvas::renderFrame);
+                } catch (InterruptedException e) {
+                    break;
+                } catch (InvocationTargetException e) {
+                    e.getCause().printStackTrace();
+                }
+            }
+
+            next += frameNanos;
+            long now = System.nanoTime();
+            if (next - now < -frameNanos) {
+                // Fell more than a frame behind; start counting again from now rather than bursting to catch up
+                next = now;
+            }
+            LockSupport.parkNanos(next - now);
+        }
+    }
+}
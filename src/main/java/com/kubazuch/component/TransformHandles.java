@@ -0,0 +1,201 @@
+package com.kubazuch.component;
+
+import com.kubazuch.geometry.Polygon;
+
+import java.awt.*;
+import java.awt.geom.*;
+
+// Rotate and scale handles around the selected polygon. A gesture works off the bounds it started with and only
+// produces transform steps, so nothing touches the vertices until the gesture ends.
+class TransformHandles {
+    private static final int HANDLE_SIZE = 8;
+    private static final int ROTATE_DISTANCE = 25;
+    private static final double MIN_SCALE = 0.05;
+    private static final double ROTATE_SNAP = Math.toRadians(15);
+    private static final Color HANDLE_COLOR = new Color(0x3070d0);
+
+    enum Handle {
+        ROTATE, SCALE_NW, SCALE_NE, SCALE_SE, SCALE_SW
+    }
+
+    private Polygon polygon;
+    private Rectangle2D bounds;
+
+    // Gesture state: the handle being dragged, the fixed point and the transform applied so far
+    private Handle active;
+    private Point2D pivot, anchor;
+    private final AffineTransform applied = new AffineTransform();
+    private boolean changed;
+
+    Polygon getPolygon() {
+        return polygon;
+    }
+
+    void attach(Polygon polygon) {
+        this.polygon = polygon;
+        this.bounds = null;
+        this.active = null;
+    }
+
+    // The polygon changed shape; bounds are measured again when next needed
+    void invalidate() {
+        if (active == null)
+            bounds = null;
+    }
+
+    // Whole-polygon moves shift the cached bounds instead of measuring them again
+    void translate(int dx, int dy) {
+        if (bounds != null && active == null)
+            bounds.setRect(bounds.getX() + dx, bounds.getY() + dy, bounds.getWidth(), bounds.getHeight());
+    }
+
+    boolean isActive() {
+        return active != null;
+    }
+
+    Handle hitTest(Point point) {
+        if (polygon == null)
+            return null;
+
+        Rectangle2D box = bounds();
+        if (point.distance(rotateHandle(box)) <= HANDLE_SIZE)
+            return Handle.ROTATE;
+
+        for (Handle handle : Handle.values()) {
+            if (handle != Handle.ROTATE && point.distance(corner(box, handle)) <= HANDLE_SIZE)
+                return handle;
+        }
+        return null;
+    }
+
+    void begin(Handle handle, Point point) {
+        Rectangle2D box = bounds();
+        active = handle;
+        anchor = point;
+        applied.setToIdentity();
+        changed = false;
+
+        if (handle == Handle.ROTATE)
+            pivot = new Point2D.Double(box.getCenterX(), box.getCenterY());
+        else
+            pivot = corner(box, opposite(handle));
+    }
+
+    // Transform that takes the polygon from where the previous step left it to where the mouse now wants it
+    AffineTransform drag(Point point, boolean constrained) {
+        AffineTransform total = active == Handle.ROTATE ? rotation(point, constrained) : scale(point, constrained);
+
+        AffineTransform step = new AffineTransform(total);
+        try {
+            step.concatenate(applied.createInverse());
+        } catch (NoninvertibleTransformException e) {
+            return new AffineTransform();
+        }
+
+        applied.setTransform(total);
+        changed |= !step.isIdentity();
+        return step;
+    }
+
+    // Ends the gesture; tells whether it actually changed anything
+    boolean end() {
+        boolean result = changed;
+        active = null;
+        bounds = null;
+        return result;
+    }
+
+    void paint(Graphics2D g) {
+        if (polygon == null)
+            return;
+
+        Rectangle2D box = bounds();
+        AffineTransform view = active != null ? applied : new AffineTransform();
+
+        Stroke oldStroke = g.getStroke();
+        Color oldColor = g.getColor();
+        g.setStroke(new BasicStroke(1));
+        g.setColor(HANDLE_COLOR);
+
+        g.draw(view.createTransformedShape(box));
+
+        Point2D top = view.transform(new Point2D.Double(box.getCenterX(), box.getY()), null);
+        Point2D rotate = view.transform(rotateHandle(box), null);
+        g.draw(new Line2D.Double(top, rotate));
+        g.fill(new Ellipse2D.Double(rotate.getX() - HANDLE_SIZE / 2.0, rotate.getY() - HANDLE_SIZE / 2.0, HANDLE_SIZE, HANDLE_SIZE));
+
+        for (Handle handle : Handle.values()) {
+            if (handle == Handle.ROTATE)
+                continue;
+
+            Point2D corner = view.transform(corner(box, handle), null);
+            Rectangle2D square = new Rectangle2D.Double(corner.getX() - HANDLE_SIZE / 2.0, corner.getY() - HANDLE_SIZE / 2.0, HANDLE_SIZE, HANDLE_SIZE);
+            g.setColor(Color.WHITE);
+            g.fill(square);
+            g.setColor(HANDLE_COLOR);
+            g.draw(square);
+        }
+
+        g.setColor(oldColor);
+        g.setStroke(oldStroke);
+    }
+
+    private Rectangle2D bounds() {
+        if (bounds == null)
+            bounds = polygon.getBounds();
+        return bounds;
+    }
+
+    // Rotation around the centre by the angle the mouse swept since the gesture started; snapped to 15 degrees if constrained
+    private AffineTransform rotation(Point point, boolean constrained) {
+        double angle = Math.atan2(point.y - pivot.getY(), point.x - pivot.getX())
+                - Math.atan2(anchor.getY() - pivot.getY(), anchor.getX() - pivot.getX());
+        if (constrained)
+            angle = Math.round(angle / ROTATE_SNAP) * ROTATE_SNAP;
+
+        return AffineTransform.getRotateInstance(angle, pivot.getX(), pivot.getY());
+    }
+
+    // Scale about the opposite corner so that the grabbed corner follows the mouse; uniform if constrained
+    private AffineTransform scale(Point point, boolean constrained) {
+        double sx = factor(point.x - pivot.getX(), anchor.getX() - pivot.getX());
+        double sy = factor(point.y - pivot.getY(), anchor.getY() - pivot.getY());
+        if (constrained)
+            sx = sy = Math.max(sx, sy);
+
+        AffineTransform transform = AffineTransform.getTranslateInstance(pivot.getX(), pivot.getY());
+        transform.scale(sx, sy);
+        transform.translate(-pivot.getX(), -pivot.getY());
+        return transform;
+    }
+
+    private static double factor(double now, double start) {
+        if (start == 0)
+            return 1;
+        return Math.max(MIN_SCALE, now / start);
+    }
+
+    private static Point2D rotateHandle(Rectangle2D box) {
+        return new Point2D.Double(box.getCenterX(), box.getY() - ROTATE_DISTANCE);
+    }
+
+    private static Point2D corner(Rectangle2D box, Handle handle) {
+        return switch (handle) {
+            case SCALE_NW -> new Point2D.Double(box.getMinX(), box.getMinY());
+            case SCALE_NE -> new Point2D.Double(box.getMaxX(), box.getMinY());
+            case SCALE_SE -> new Point2D.Double(box.getMaxX(), box.getMaxY());
+            case SCALE_SW -> new Point2D.Double(box.getMinX(), box.getMaxY());
+            case ROTATE -> rotateHandle(box);
+        };
+    }
+
+    private static Handle opposite(Handle handle) {
+        return switch (handle) {
+            case SCALE_NW -> Handle.SCALE_SE;
+            case SCALE_NE -> Handle.SCALE_SW;
+            case SCALE_SE -> Handle.SCALE_NW;
+            case SCALE_SW -> Handle.SCALE_NE;
+            case ROTATE -> Handle.ROTATE;
+        };
+    }
+}
@@ -0,0 +1,169 @@
+package com.kubazuch.export;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// PNG encoder fed a band of rows at a time, so an image of any height goes out without ever being held whole.
+// 8-bit RGB; every row gets the filter that leaves the smallest sum of absolute values (the usual heuristic), is
+// deflated right away and the compressed bytes are written in IDAT chunks as they fill up.
+class PngStreamWriter implements Closeable {
+	private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+	private static final int CHUNK_SIZE = 1 << 16;
+	private static final int BYTES_PER_PIXEL = 3;
+
+	private final OutputStream out;
+	private final int width, height;
+	private int rows;
+
+	private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+	private final ByteArrayOutputStream chunk = new ByteArrayOutputStream(CHUNK_SIZE + 1024);
+	private final byte[] deflated = new byte[CHUNK_SIZE];
+
+	// Raw bytes of the previous and current row, and one candidate per filter type; each filtered row starts with its type
+	private byte[] previous, current;
+	private final byte[][] filtered = new byte[5][];
+
+	PngStreamWriter(OutputStream out, int width, int height) throws IOException {
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("Empty image " + width + "x" + height);
+
+		this.out = out;
+		this.width = width;
+		this.height = height;
+
+		// The filters read the row above the first one as zeros, which is what previous starts out as
+		int stride = width * BYTES_PER_PIXEL;
+		this.previous = new byte[stride];
+		this.current = new byte[stride];
+		for (int i = 0; i < filtered.length; i++) {
+			filtered[i] = new byte[stride + 1];
+			filtered[i][0] = (byte) i;
+		}
+
+		out.write(SIGNATURE);
+
+		ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+		DataOutputStream data = new DataOutputStream(header);
+		data.writeInt(width);
+		data.writeInt(height);
+		data.writeByte(8); // bit depth
+		data.writeByte(2); // truecolour
+		data.writeByte(0); // deflate
+		data.writeByte(0); // adaptive filtering
+		data.writeByte(0); // no interlace
+		writeChunk("IHDR", header.toByteArray(), header.size());
+	}
+
+	// Appends count rows of packed RGB pixels, the first one at offset, each scanline stride ints apart
+	void writeRows(int[] pixels, int offset, int stride, int count) throws IOException {
+		if (rows + count > height)
+			throw new IllegalStateException("More rows than the image has");
+
+		for (int row = 0; row < count; row++) {
+			int start = offset + row * stride;
+			for (int x = 0, i = 0; x < width; x++) {
+				int rgb = pixels[start + x];
+				current[i++] = (byte) (rgb >> 16);
+				current[i++] = (byte) (rgb >> 8);
+				current[i++] = (byte) rgb;
+			}
+
+			deflate(filterRow());
+
+			byte[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		rows += count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (rows != height)
+				throw new IllegalStateException("Only " + rows + " of " + height + " rows were written");
+
+			deflater.finish();
+			while (!deflater.finished()) {
+				chunk.write(deflated, 0, deflater.deflate(deflated));
+				if (chunk.size() >= CHUNK_SIZE)
+					flushChunk();
+			}
+			flushChunk();
+			writeChunk("IEND", new byte[0], 0);
+			out.flush();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private byte[] filterRow() {
+		byte[] none = filtered[0], sub = filtered[1], up = filtered[2], average = filtered[3], paeth = filtered[4];
+		long[] costs = new long[5];
+
+		for (int i = 0; i < current.length; i++) {
+			int x = current[i] & 0xff;
+			int a = i >= BYTES_PER_PIXEL ? current[i - BYTES_PER_PIXEL] & 0xff : 0;
+			int b = previous[i] & 0xff;
+			int c = i >= BYTES_PER_PIXEL ? previous[i - BYTES_PER_PIXEL] & 0xff : 0;
+
+			none[i + 1] = (byte) x;
+			sub[i + 1] = (byte) (x - a);
+			up[i + 1] = (byte) (x - b);
+			average[i + 1] = (byte) (x - ((a + b) >> 1));
+			paeth[i + 1] = (byte) (x - paethPredictor(a, b, c));
+
+			for (int f = 0; f < 5; f++) {
+				// Residues are compared as signed bytes, so that small negative ones count as small
+				costs[f] += Math.abs(filtered[f][i + 1]);
+			}
+		}
+
+		int best = 0;
+		for (int f = 1; f < 5; f++) {
+			if (costs[f] < costs[best])
+				best = f;
+		}
+		return filtered[best];
+	}
+
+	private static int paethPredictor(int a, int b, int c) {
+		int p = a + b - c;
+		int pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+		if (pa <= pb && pa <= pc)
+			return a;
+		return pb <= pc ? b : c;
+	}
+
+	private void deflate(byte[] row) throws IOException {
+		deflater.setInput(row);
+		while (!deflater.needsInput()) {
+			chunk.write(deflated, 0, deflater.deflate(deflated));
+			if (chunk.size() >= CHUNK_SIZE)
+				flushChunk();
+		}
+	}
+
+	private void flushChunk() throws IOException {
+		if (chunk.size() == 0)
+			return;
+
+		writeChunk("IDAT", chunk.toByteArray(), chunk.size());
+		chunk.reset();
+	}
+
+	private void writeChunk(String type, byte[] data, int length) throws IOException {
+		byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(name);
+		crc.update(data, 0, length);
+
+		DataOutputStream chunkOut = new DataOutputStream(out);
+		chunkOut.writeInt(length);
+		chunkOut.write(name);
+		chunkOut.write(data, 0, length);
+		chunkOut.writeInt((int) crc.getValue());
+	}
+}
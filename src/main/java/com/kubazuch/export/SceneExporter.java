@@ -0,0 +1,237 @@
+package com.kubazuch.export;
+
+import com.kubazuch.DrawUtils;
+import com.kubazuch.geometry.Circle;
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.geometry.PolygonSnapshot;
+import com.kubazuch.scene.SceneSnapshot;
+
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Writes a scene snapshot to a PNG of any size, e.g. a poster at 20000x20000. The image is cut into square tiles,
+// each drawn on its own by a pool of workers through the same Java2D code the canvas paints with, so it looks like
+// the screen scaled up. Tiles are produced a band (one row of tiles) at a time and a band is encoded while the next
+// one renders. Memory is therefore bounded by two full-width bands, 2 * width * TILE_SIZE ints (about 40 MB for a
+// 20000 pixel wide image), plus one tile per worker, whatever the image height.
+public class SceneExporter {
+	public static final int TILE_SIZE = 256;
+	// How far constraint badges and vertex dots reach past a polygon's outline, in scene pixels
+	private static final double DECORATION_REACH = 32;
+	private static final Rectangle2D EVERYWHERE = new Rectangle2D.Double(-Double.MAX_VALUE / 2, -Double.MAX_VALUE / 2, Double.MAX_VALUE, Double.MAX_VALUE);
+
+	// Output size in pixels, output pixels per scene pixel and the offset contour distance, as set on the canvas
+	public record Settings(int width, int height, double scale, int offset) {
+	}
+
+	public interface Progress {
+		// Called after every band; returning false cancels the export
+		boolean report(int done, int total);
+	}
+
+	private record Drawn(Polygon polygon, List<List<Point2D>> contours, Rectangle2D reach) {
+	}
+
+	private record CircleDrawn(Circle circle, Rectangle2D reach) {
+	}
+
+	private final Settings settings;
+	private final List<Drawn> polygons = new ArrayList<>();
+	private final List<CircleDrawn> circles = new ArrayList<>();
+
+	private final int columns, bands;
+	private final ExecutorService pool;
+	private final ThreadLocal<BufferedImage> tileImages = ThreadLocal.withInitial(() -> new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB));
+
+	private SceneExporter(Settings settings) {
+		this.settings = settings;
+		this.columns = (settings.width() + TILE_SIZE - 1) / TILE_SIZE;
+		this.bands = (settings.height() + TILE_SIZE - 1) / TILE_SIZE;
+
+		AtomicInteger counter = new AtomicInteger();
+		this.pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+			Thread thread = new Thread(r, "png-export-" + counter.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	// Writes the image to the file; false if the export was cancelled, in which case the file is deleted again
+	public static boolean export(SceneSnapshot scene, Settings settings, Path file, Progress progress) throws IOException, InterruptedException {
+		if (settings.width() <= 0 || settings.height() <= 0 || settings.scale() <= 0)
+			throw new IllegalArgumentException("Invalid export settings " + settings);
+
+		SceneExporter exporter = new SceneExporter(settings);
+		boolean completed = false;
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+			exporter.prepare(scene);
+			completed = exporter.write(out, progress);
+		} finally {
+			exporter.pool.shutdownNow();
+			if (!completed)
+				Files.deleteIfExists(file);
+		}
+		return completed;
+	}
+
+	// Rebuilds the snapshot as private polygons and circles and works out their offset contours and how far each reaches
+	private void prepare(SceneSnapshot scene) throws InterruptedException {
+		for (SceneSnapshot.CircleSnapshot snapshot : scene.getCircles()) {
+			Circle circle = new Circle(new Point(snapshot.x(), snapshot.y()), snapshot.radius());
+			// The outline is plotted one pixel past the radius
+			int reach = snapshot.radius() + 2;
+			circles.add(new CircleDrawn(circle, new Rectangle2D.Double(snapshot.x() - reach, snapshot.y() - reach, 2 * reach, 2 * reach)));
+		}
+
+		// Contours are the costly part, so they are untangled in parallel
+		List<Callable<Drawn>> tasks = new ArrayList<>(scene.getPolygons().size());
+		for (PolygonSnapshot snapshot : scene.getPolygons()) {
+			tasks.add(() -> {
+				Polygon polygon = snapshot.toPolygon();
+				List<List<Point2D>> contours = settings.offset() == 0 ? List.of() : polygon.getOffsetContours(settings.offset());
+
+				Rectangle2D reach = polygon.getBounds();
+				for (List<Point2D> contour : contours) {
+					for (Point2D point : contour) {
+						reach.add(point);
+					}
+				}
+				reach.setRect(reach.getX() - DECORATION_REACH, reach.getY() - DECORATION_REACH,
+						reach.getWidth() + 2 * DECORATION_REACH, reach.getHeight() + 2 * DECORATION_REACH);
+
+				// Degenerate corners can leave NaN points in the contours, which still draw on screen; such a polygon
+				// cannot be bounded, so it goes into every tile
+				if (Double.isNaN(reach.getWidth()) || Double.isNaN(reach.getHeight()))
+					reach = EVERYWHERE;
+				return new Drawn(polygon, contours, reach);
+			});
+		}
+
+		try {
+			for (Future<Drawn> future : pool.invokeAll(tasks)) {
+				polygons.add(future.get());
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	private boolean write(OutputStream out, Progress progress) throws IOException, InterruptedException {
+		PngStreamWriter png = new PngStreamWriter(out, settings.width(), settings.height());
+
+		// Two band buffers: the encoder drains one while the workers fill the other
+		int[][] buffers = {new int[settings.width() * TILE_SIZE], new int[settings.width() * TILE_SIZE]};
+		List<Future<?>> next = renderBand(0, buffers[0]);
+
+		for (int band = 0; band < bands; band++) {
+			try {
+				for (Future<?> tile : next) {
+					tile.get();
+				}
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+
+			int[] pixels = buffers[band & 1];
+			if (band + 1 < bands)
+				next = renderBand(band + 1, buffers[(band + 1) & 1]);
+
+			png.writeRows(pixels, 0, settings.width(), bandHeight(band));
+			if (!progress.report(band + 1, bands)) {
+				for (Future<?> tile : next) {
+					tile.cancel(true);
+				}
+				return false;
+			}
+		}
+
+		png.close();
+		return true;
+	}
+
+	private int bandHeight(int band) {
+		return Math.min(TILE_SIZE, settings.height() - band * TILE_SIZE);
+	}
+
+	// Queues the band's tiles on the workers; the band is in pixels once all the futures are done
+	private List<Future<?>> renderBand(int band, int[] pixels) {
+		int y0 = band * TILE_SIZE;
+		int height = bandHeight(band);
+
+		// Narrow the scene down to the band first, so each tile only sifts through what crosses its row
+		Rectangle2D bandArea = toScene(0, y0, settings.width(), height);
+		List<Drawn> bandPolygons = new ArrayList<>();
+		for (Drawn drawn : polygons) {
+			if (drawn.reach().intersects(bandArea))
+				bandPolygons.add(drawn);
+		}
+		List<CircleDrawn> bandCircles = new ArrayList<>();
+		for (CircleDrawn drawn : circles) {
+			if (drawn.reach().intersects(bandArea))
+				bandCircles.add(drawn);
+		}
+
+		List<Future<?>> tiles = new ArrayList<>(columns);
+		for (int column = 0; column < columns; column++) {
+			int x0 = column * TILE_SIZE;
+			int width = Math.min(TILE_SIZE, settings.width() - x0);
+			tiles.add(pool.submit(() -> {
+				BufferedImage tile = renderTile(x0, y0, width, height, bandPolygons, bandCircles);
+				tile.getRGB(0, 0, width, height, pixels, x0, settings.width());
+			}));
+		}
+		return tiles;
+	}
+
+	// Draws one tile the way SceneRenderer paints the scene with Java2D: circles without antialiasing, then the
+	// polygons back to front with their offset contours
+	private BufferedImage renderTile(int x0, int y0, int width, int height, List<Drawn> bandPolygons, List<CircleDrawn> bandCircles) {
+		BufferedImage tile = tileImages.get();
+		Graphics2D g = tile.createGraphics();
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, width, height);
+		g.clipRect(0, 0, width, height);
+		g.translate(-x0, -y0);
+		g.scale(settings.scale(), settings.scale());
+
+		Rectangle2D area = toScene(x0, y0, width, height);
+
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+		for (CircleDrawn drawn : bandCircles) {
+			if (drawn.reach().intersects(area))
+				drawn.circle().draw(g);
+		}
+
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		for (int i = bandPolygons.size() - 1; i >= 0; i--) {
+			Drawn drawn = bandPolygons.get(i);
+			if (!drawn.reach().intersects(area))
+				continue;
+
+			g.setColor(drawn.polygon().getColor());
+			if (settings.offset() != 0)
+				DrawUtils.drawOffset(g, drawn.contours());
+			drawn.polygon().draw(g);
+		}
+
+		g.dispose();
+		return tile;
+	}
+
+	// The part of the scene that lands in the given rectangle of output pixels
+	private Rectangle2D toScene(int x, int y, int width, int height) {
+		double scale = settings.scale();
+		return new Rectangle2D.Double(x / scale, y / scale, width / scale, height / scale);
+	}
+}
@@ -0,0 +1,107 @@
+package com.kubazuch.geometry;
+
+import java.awt.geom.Point2D;
+import java.util.*;
+import java.util.function.LongConsumer;
+
+// Segments of a polygonal chain that is still being drawn, hashed into a uniform grid by the cells they pass through.
+// A new segment is only tested against the segments sharing one of its cells, so adding a point or moving the rubber
+// band costs about as much as the segments near it, not as much as the whole chain.
+public class ChainIndex {
+	private static final double CELL_SIZE = 64;
+
+	private final List<Segment> segments = new ArrayList<>();
+	private final Map<Long, List<Integer>> cells = new HashMap<>();
+	private final List<Point2D> crossings = new ArrayList<>();
+	private Point2D last;
+
+	// Query stamp per segment, so that one reported in several shared cells is tested once
+	private int[] visited = new int[16];
+	private int query;
+
+	public void clear() {
+		segments.clear();
+		cells.clear();
+		crossings.clear();
+		last = null;
+	}
+
+	// Extends the chain to the point; crossings of the new segment with the chain so far are kept
+	public void add(Point2D point) {
+		if (last != null) {
+			Segment segment = new Segment(last, point);
+			findCrossings(segment, crossings);
+			insert(segment);
+		}
+		last = point;
+	}
+
+	// Crossings between segments already added
+	public List<Point2D> getCrossings() {
+		return Collections.unmodifiableList(crossings);
+	}
+
+	// Crossings the segment would make with the chain; only proper crossings count, so touching the end of the
+	// chain it continues from is not one
+	public void findCrossings(Segment probe, List<Point2D> out) {
+		if (segments.isEmpty())
+			return;
+
+		query++;
+		forEachCell(probe, CELL_SIZE, key -> {
+			List<Integer> bucket = cells.get(key);
+			if (bucket == null)
+				return;
+
+			for (int index : bucket) {
+				if (visited[index] == query)
+					continue;
+				visited[index] = query;
+
+				Segment segment = segments.get(index);
+				if (segment.intersects(probe))
+					out.add(segment.intersect(probe));
+			}
+		});
+	}
+
+	private void insert(Segment segment) {
+		int index = segments.size();
+		segments.add(segment);
+		if (index >= visited.length)
+			visited = Arrays.copyOf(visited, visited.length * 2);
+
+		forEachCell(segment, CELL_SIZE, key -> cells.computeIfAbsent(key, k -> new ArrayList<>(4)).add(index));
+	}
+
+	// Walks the grid cells the segment passes through, in order from its start; shared with the snapping index
+	static void forEachCell(Segment segment, double cellSize, LongConsumer action) {
+		double x0 = segment.getFrom().getX() / cellSize, y0 = segment.getFrom().getY() / cellSize;
+		double x1 = segment.getTo().getX() / cellSize, y1 = segment.getTo().getY() / cellSize;
+
+		int cx = (int) Math.floor(x0), cy = (int) Math.floor(y0);
+		int endX = (int) Math.floor(x1), endY = (int) Math.floor(y1);
+		int stepX = Integer.signum(endX - cx), stepY = Integer.signum(endY - cy);
+
+		double dx = Math.abs(x1 - x0), dy = Math.abs(y1 - y0);
+		double deltaX = 1 / dx, deltaY = 1 / dy;
+		double maxX = (stepX > 0 ? cx + 1 - x0 : x0 - cx) * deltaX;
+		double maxY = (stepY > 0 ? cy + 1 - y0 : y0 - cy) * deltaY;
+
+		action.accept(key(cx, cy));
+		for (int n = Math.abs(endX - cx) + Math.abs(endY - cy); n > 0; n--) {
+			if (cy == endY || (cx != endX && maxX < maxY)) {
+				cx += stepX;
+				maxX += deltaX;
+			} else {
+				cy += stepY;
+				maxY += deltaY;
+			}
+			action.accept(key(cx, cy));
+		}
+	}
+
+	static long key(int cx, int cy) {
+		return ((long) cx << 32) ^ (cy & 0xffffffffL);
+	}
+}
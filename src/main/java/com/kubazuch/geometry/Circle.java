@@ -1,6 +1,7 @@
 package com.kubazuch.geometry;
 
 import com.kubazuch.DrawUtils;
+import com.kubazuch.render.DisplayList;
 
 import java.awt.*;
 
@@ -27,15 +28,11 @@ public class Circle implements Drawable{
 
     @Override
     public void draw(Graphics2D g) {
-        DrawUtils.drawWuCirlce(g, center, radius);
+        DrawUtils.drawCircle(g, center, radius);
     }
 
-    @Override
-    public void setSelected(boolean selected) {
-    }
-
-    @Override
-    public void setHighlighted(boolean highlighted) {
+    public void draw(DisplayList list) {
+        list.wuCircle(center.x, center.y, radius);
     }
 
     @Override
@@ -0,0 +1,131 @@
+package com.kubazuch.geometry;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+// Circles filed into grid cells by their bounding boxes, so that picking the circle under the mouse only tests the
+// circles whose box covers the mouse's cell. Moving or resizing one re-files just that circle; adding or replacing
+// circles makes the next lookup rebuild the index.
+public class CircleIndex {
+	private static final int CELL_SIZE = 64;
+	// A circle covering more cells than this is kept aside and tested on every lookup instead
+	private static final int MAX_CELLS = 1024;
+
+	private final List<Circle> circles;
+
+	private final Map<Long, List<Circle>> cells = new HashMap<>();
+	private final List<Circle> oversized = new ArrayList<>();
+	// Position in the list when the index was built; the first circle in the list wins, as with a linear scan
+	private final Map<Circle, Integer> order = new IdentityHashMap<>();
+	private final Map<Circle, Rectangle> filedBounds = new IdentityHashMap<>();
+
+	private final Set<Circle> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+	private boolean dirty = true;
+
+	public CircleIndex(List<Circle> circles) {
+		this.circles = circles;
+	}
+
+	public void invalidate() {
+		dirty = true;
+	}
+
+	// The circle is about to move or change its radius
+	public void circleChanging(Circle circle) {
+		if (dirty || !order.containsKey(circle))
+			return;
+
+		unfile(circle);
+		stale.add(circle);
+	}
+
+	// The first circle in the list that contains the point, or null
+	public Circle hitTest(Point point) {
+		flush();
+
+		Circle best = null;
+		int bestOrder = Integer.MAX_VALUE;
+
+		List<Circle> bucket = cells.get(ChainIndex.key(Math.floorDiv(point.x, CELL_SIZE), Math.floorDiv(point.y, CELL_SIZE)));
+		if (bucket != null) {
+			for (Circle circle : bucket) {
+				int position = order.get(circle);
+				if (position < bestOrder && circle.hitTest(point) != null) {
+					best = circle;
+					bestOrder = position;
+				}
+			}
+		}
+
+		for (Circle circle : oversized) {
+			int position = order.get(circle);
+			if (position < bestOrder && circle.hitTest(point) != null) {
+				best = circle;
+				bestOrder = position;
+			}
+		}
+		return best;
+	}
+
+	private void flush() {
+		// Circles can also be replaced wholesale outside the history, e.g. when a scene is loaded
+		if (dirty || order.size() != circles.size()) {
+			cells.clear();
+			oversized.clear();
+			order.clear();
+			filedBounds.clear();
+			stale.clear();
+
+			for (Circle circle : circles) {
+				order.put(circle, order.size());
+				file(circle);
+			}
+			dirty = false;
+			return;
+		}
+
+		for (Circle circle : stale) {
+			file(circle);
+		}
+		stale.clear();
+	}
+
+	private void file(Circle circle) {
+		Point center = circle.getCenter();
+		int radius = circle.getRadius();
+		Rectangle bounds = new Rectangle(
+				Math.floorDiv(center.x - radius, CELL_SIZE), Math.floorDiv(center.y - radius, CELL_SIZE), 0, 0);
+		bounds.width = Math.floorDiv(center.x + radius, CELL_SIZE) - bounds.x + 1;
+		bounds.height = Math.floorDiv(center.y + radius, CELL_SIZE) - bounds.y + 1;
+
+		filedBounds.put(circle, bounds);
+		if ((long) bounds.width * bounds.height > MAX_CELLS) {
+			oversized.add(circle);
+			return;
+		}
+
+		for (int cx = bounds.x; cx < bounds.x + bounds.width; cx++) {
+			for (int cy = bounds.y; cy < bounds.y + bounds.height; cy++) {
+				cells.computeIfAbsent(ChainIndex.key(cx, cy), k -> new ArrayList<>(4)).add(circle);
+			}
+		}
+	}
+
+	private void unfile(Circle circle) {
+		Rectangle bounds = filedBounds.remove(circle);
+		if (bounds == null)
+			return;
+
+		if ((long) bounds.width * bounds.height > MAX_CELLS) {
+			oversized.remove(circle);
+			return;
+		}
+
+		for (int cx = bounds.x; cx < bounds.x + bounds.width; cx++) {
+			for (int cy = bounds.y; cy < bounds.y + bounds.height; cy++) {
+				cells.get(ChainIndex.key(cx, cy)).remove(circle);
+			}
+		}
+	}
+}
@@ -1,6 +1,7 @@
 package com.kubazuch.geometry;
 
 import com.kubazuch.DrawUtils;
+import com.kubazuch.render.DisplayList;
 
 import java.awt.*;
 import java.awt.geom.Point2D;
@@ -26,14 +27,12 @@ public class Edge extends Segment implements Drawable {
 
 	Vertex from, to;
 
-	private boolean selected, highlighted;
-
 	private Constraint constraint = Constraint.NONE;
 
 	Edge next, prev;
 
 	public Edge(Polygon parent, Vertex from, Vertex to) {
-		super(from.getPoint2D(), to.getPoint2D());
+		super(from.point2D, to.point2D);
 		this.from = from;
 		this.to = to;
 
@@ -53,22 +52,42 @@ public class Edge extends Segment implements Drawable {
 
 	public void setFrom(Vertex from) {
 		this.from = from;
-		super.from = from.getPoint2D();
+		super.from = from.point2D;
 	}
 
 	public void setTo(Vertex to) {
 		this.to = to;
-		super.to = to.getPoint2D();
+		super.to = to.point2D;
+	}
+
+	@Override
+	public Point2D getFrom() {
+		parent.bake();
+		return super.getFrom();
 	}
 
 	@Override
-	public void setSelected(boolean selected) {
-		this.selected = selected;
+	public Point2D getTo() {
+		parent.bake();
+		return super.getTo();
 	}
 
 	@Override
-	public void setHighlighted(boolean highlighted) {
-		this.highlighted = highlighted;
+	public Point2D midpoint() {
+		parent.bake();
+		return super.midpoint();
+	}
+
+	// The edge as drawn, with the polygon's pending transform applied; only allocates while a transform is pending
+	Segment toWorld() {
+		if (parent.transform == null)
+			return this;
+
+		return new Segment(parent.toWorld(from.point2D), parent.toWorld(to.point2D));
+	}
+
+	public Polygon getPolygon() {
+		return parent;
 	}
 
 	public Constraint getConstraint() {
@@ -76,26 +95,41 @@ public class Edge extends Segment implements Drawable {
 	}
 
 	public void setConstraint(Constraint constraint) {
-		if (constraint != Constraint.NONE && (prev.constraint == constraint || next.constraint == constraint))
+		parent.bake();
+		if (conflicts(constraint))
 			throw new IllegalArgumentException();
 
 		this.constraint = constraint;
+		if (constraint != Constraint.NONE) {
+			snap();
+			parent.updateClockwiseness();
+		}
+	}
+
+	boolean conflicts(Constraint constraint) {
+		return constraint != Constraint.NONE && (prev.constraint == constraint || next.constraint == constraint);
+	}
+
+	// Puts both endpoints on the constraint's axis, halfway between where they were
+	void snap() {
 		switch (constraint) {
 			case VERTICAL -> {
-				double x = to.getX() + from.getX();
+				double x = to.point2D.getX() + from.point2D.getX();
 				from.setX((int) (x / 2));
 				to.setX((int) (x / 2));
-				parent.updateClockwiseness();
 			}
 			case HORIZONTAL -> {
-				double y = to.getY() + from.getY();
+				double y = to.point2D.getY() + from.point2D.getY();
 				from.setY((int) (y / 2));
 				to.setY((int) (y / 2));
-				parent.updateClockwiseness();
 			}
 		}
 	}
 
+	void restoreConstraint(Constraint constraint) {
+		this.constraint = constraint;
+	}
+
 	public Drawable divide() {
 		setConstraint(Constraint.NONE);
 
@@ -120,6 +154,10 @@ public class Edge extends Segment implements Drawable {
 
 	@Override
 	public void draw(Graphics2D g) {
+		draw(g, false, false);
+	}
+
+	void draw(Graphics2D g, boolean selected, boolean highlighted) {
 		Color old = g.getColor();
 
 		if (selected)
@@ -127,19 +165,38 @@ public class Edge extends Segment implements Drawable {
 		else if (highlighted)
 			g.setColor(old.brighter());
 
+		Segment world = toWorld();
 		if (selected || highlighted)
-			DrawUtils.drawLine(g, this, DrawUtils.SELECTED_LINE_THICKNESS);
+			DrawUtils.drawLine(g, world, DrawUtils.SELECTED_LINE_THICKNESS);
 		else
-			DrawUtils.drawLine(g, this);
+			DrawUtils.drawLine(g, world);
 
 		if (constraint != Constraint.NONE)
-			DrawUtils.drawConstraint(g, constraint, midpoint());
+			DrawUtils.drawConstraint(g, constraint, world.midpoint());
 
 		g.setColor(old);
 	}
 
+	void draw(DisplayList list, Color color, boolean selected, boolean highlighted) {
+		if (selected)
+			color = color.darker();
+		else if (highlighted)
+			color = color.brighter();
+
+		Segment world = toWorld();
+		Point2D a = world.getFrom(), b = world.getTo();
+		list.line((int) a.getX(), (int) a.getY(), (int) b.getX(), (int) b.getY(), color, selected || highlighted ? DrawUtils.SELECTED_LINE_THICKNESS : 1);
+
+		if (constraint != Constraint.NONE) {
+			Constraint badge = constraint;
+			Point2D midpoint = world.midpoint();
+			list.overlay(g -> DrawUtils.drawConstraint(g, badge, midpoint));
+		}
+	}
+
 	@Override
 	public void move(int dx, int dy) {
+		parent.bake();
 		from.translate(dx, dy);
 		to.translate(dx, dy);
 
@@ -160,15 +217,19 @@ public class Edge extends Segment implements Drawable {
 
 	@Override
 	public Drawable hitTest(Point point) {
-		Drawable endpoint = from.hitTest(point);
-		if (endpoint != null) return endpoint;
-		endpoint = to.hitTest(point);
-		if (endpoint != null) return endpoint;
+		return hitTestWorld(parent.toWorld(from.point2D), parent.toWorld(to.point2D), point);
+	}
+
+	// Hit test against the endpoints as drawn, i.e. with the polygon's pending transform applied. Distances are
+	// measured on screen, so the tolerance stays the same however the polygon is scaled.
+	Drawable hitTestWorld(Point2D a, Point2D b, Point2D point) {
+		if (GeometryUtils.pointHitTest(a, point)) return from;
+		if (GeometryUtils.pointHitTest(b, point)) return to;
 
-		double Sx = to.getX() - from.getX();
-		double Sy = to.getY() - from.getY();
-		double Px = point.getX() - from.getX();
-		double Py = point.getY() - from.getY();
+		double Sx = b.getX() - a.getX();
+		double Sy = b.getY() - a.getY();
+		double Px = point.getX() - a.getX();
+		double Py = point.getY() - a.getY();
 
 		double len = Sx * Sx + Sy * Sy;
 		double dot = Sx * Px + Sy * Py;
@@ -178,7 +239,7 @@ public class Edge extends Segment implements Drawable {
 		double factor = dot / len;
 		if (factor < 0 || factor > 1) return null;
 
-		Point2D projection = new Point2D.Double(from.getX() + factor * Sx, from.getY() + factor * Sy);
+		Point2D projection = new Point2D.Double(a.getX() + factor * Sx, a.getY() + factor * Sy);
 		double dist = projection.distance(point);
 
 		return dist < GeometryUtils.LINE_DETECTION_RANGE ? this : null;
@@ -197,11 +258,6 @@ public class Edge extends Segment implements Drawable {
 		StringBuilder ret = new StringBuilder();
 		ret.append("Edge{");
 
-		if (selected)
-			ret.append("selected, ");
-		else if (highlighted)
-			ret.append("highlighted, ");
-
 		if (constraint != Constraint.NONE)
 			ret.append("constraint=").append(constraint).append(", ");
 
@@ -1,32 +1,72 @@
 package com.kubazuch.geometry;
 
 import com.kubazuch.DrawUtils;
+import com.kubazuch.render.DisplayList;
 
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.*;
 import java.awt.Color;
 import java.awt.Point;
 import java.awt.Graphics2D;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 public class Polygon implements Drawable {
-	private static int ID = 0;
+	// Numbers the scene's polygons for their labels; polygons may be created off the EDT, e.g. by the journal
+	private static final AtomicInteger ID = new AtomicInteger();
+	// How far off its axis a constrained edge may end up after a bake and still keep its constraint
+	private static final double AXIS_TOLERANCE = 1.0;
+	private static final SelectionModel NOTHING_SELECTED = new SelectionModel();
 
 	Edge firstEdge;
 	int size;
 
+	// Whole-polygon transform not yet folded into the vertices, null when there is none. Drawing and hit-testing apply
+	// it on the fly, so moving the polygon as a whole is O(1); bake() writes it into the vertices once something needs
+	// them individually.
+	AffineTransform transform;
+	// Counts the bakes, i.e. the times the vertex coordinates were rewritten by the pending transform
+	int bakes;
+
 	private Color color;
 	private boolean clockwise;
 	private final int id;
 	private final Consumer<Polygon> deletionHandler;
 
-	public Polygon(LinkedList<Point> points, Color c, Consumer<Polygon> deletionHandler) {
+	public Polygon(List<? extends Point2D> points, Color c, Consumer<Polygon> deletionHandler) {
+		this(points, null, c, deletionHandler, ID.getAndIncrement());
+	}
+
+	// Rebuilds a polygon exactly as stored; constraints are assigned as-is, without re-validating or moving vertices
+	public Polygon(List<? extends Point2D> points, Edge.Constraint[] constraints, Color c, Consumer<Polygon> deletionHandler) {
+		this(points, constraints, c, deletionHandler, ID.getAndIncrement());
+	}
+
+	private Polygon(List<? extends Point2D> points, Edge.Constraint[] constraints, Color c, Consumer<Polygon> deletionHandler, int id) {
 		this.color = c;
-		this.id = ID++;
+		this.id = id;
 		this.deletionHandler = deletionHandler;
 
 		constructPointsAndEdges(points);
 		updateClockwiseness();
+
+		if (constraints != null) {
+			int i = 0;
+			for (Edge edge : edges()) {
+				edge.restoreConstraint(constraints[i++]);
+			}
+		}
+	}
+
+	// A stored polygon rebuilt outside the scene, e.g. to draw a snapshot with; it takes no number from the scene's
+	// polygons and is never deleted through the canvas
+	static Polygon detached(List<? extends Point2D> points, Edge.Constraint[] constraints, Color c) {
+		return new Polygon(points, constraints, c, polygon -> {
+		}, -1);
 	}
 
 	public Color getColor() {
@@ -38,47 +78,175 @@ public class Polygon implements Drawable {
 	}
 
 	@Override
-	public void setSelected(boolean selected) {
-		Queue<Vertex> points = new LinkedList<>();
-		for (Edge segment : getEdges()) {
-			segment.setSelected(selected);
-			points.add(segment.getDrawableFrom());
+	public void draw(Graphics2D g) {
+		draw(g, NOTHING_SELECTED);
+	}
+
+	public void draw(Graphics2D g, SelectionModel selection) {
+		g.setColor(color);
+
+		if (DrawUtils.canBatch()) {
+			drawBatched(g, selection);
+			return;
 		}
 
-		for (Drawable point : points) {
-			point.setSelected(selected);
+		boolean selected = selection.isSelected(this), highlighted = selection.isHighlighted(this);
+		boolean parts = selection.hasMarkedParts(this);
+
+		for (Edge edge : edges()) {
+			edge.draw(g, selected || parts && selection.isSelected(edge), highlighted || parts && selection.isHighlighted(edge));
+		}
+
+		for (Edge edge : edges()) {
+			Vertex vertex = edge.from;
+			vertex.draw(g, selected || parts && selection.isSelected(vertex), highlighted || parts && selection.isHighlighted(vertex));
 		}
 	}
 
-	@Override
-	public void setHighlighted(boolean highlighted) {
-		Queue<Vertex> points = new LinkedList<>();
-		for (Edge segment : getEdges()) {
-			segment.setHighlighted(highlighted);
-			points.add(segment.getDrawableFrom());
+	// Plain edges and vertices go out as one path each; selected and highlighted ones keep drawing themselves on top
+	private void drawBatched(Graphics2D g, SelectionModel selection) {
+		boolean selected = selection.isSelected(this), highlighted = selection.isHighlighted(this);
+		if (selected || highlighted) {
+			for (Edge edge : edges()) {
+				edge.draw(g, selected, highlighted);
+			}
+			for (Edge edge : edges()) {
+				edge.from.draw(g, selected, highlighted);
+			}
+			return;
+		}
+
+		// Only a handful of parts can be marked on their own; look them up only if this polygon has any
+		boolean parts = selection.hasMarkedParts(this);
+		Path2D lines = new Path2D.Float();
+		Path2D points = new Path2D.Float();
+
+		for (Edge edge : edges()) {
+			if (!parts || !isMarked(selection, edge))
+				DrawUtils.appendLine(lines, edge.toWorld());
+
+			Vertex vertex = edge.from;
+			if (!parts || !isMarked(selection, vertex))
+				DrawUtils.appendPoint(points, vertex.getWorldPoint2D());
 		}
 
-		for (Drawable point : points) {
-			point.setHighlighted(highlighted);
+		g.draw(lines);
+		for (Edge edge : edges()) {
+			if (parts && isMarked(selection, edge))
+				edge.draw(g, selection.isSelected(edge), selection.isHighlighted(edge));
+			else if (edge.getConstraint() != Edge.Constraint.NONE)
+				DrawUtils.drawConstraint(g, edge.getConstraint(), edge.toWorld().midpoint());
+		}
+
+		g.fill(points);
+		if (parts) {
+			for (Edge edge : edges()) {
+				Vertex vertex = edge.from;
+				if (isMarked(selection, vertex))
+					vertex.draw(g, selection.isSelected(vertex), selection.isHighlighted(vertex));
+			}
 		}
 	}
 
-	@Override
-	public void draw(Graphics2D g) {
+	// Only the selected and highlighted edges and vertices, in their marked style; for drawing the marks over a picture
+	// of the scene that was drawn without them
+	public void drawMarked(Graphics2D g, SelectionModel selection) {
+		boolean selected = selection.isSelected(this), highlighted = selection.isHighlighted(this);
+		boolean parts = selection.hasMarkedParts(this);
+		if (!selected && !highlighted && !parts)
+			return;
+
 		g.setColor(color);
+		for (Edge edge : edges()) {
+			boolean edgeSelected = selected || parts && selection.isSelected(edge);
+			boolean edgeHighlighted = highlighted || parts && selection.isHighlighted(edge);
+			if (edgeSelected || edgeHighlighted)
+				edge.draw(g, edgeSelected, edgeHighlighted);
+		}
 
-		Queue<Vertex> points = new LinkedList<>();
-		for (Edge segment : getEdges()) {
-			segment.draw(g);
-			points.add(segment.getDrawableFrom());
+		for (Edge edge : edges()) {
+			Vertex vertex = edge.from;
+			boolean vertexSelected = selected || parts && selection.isSelected(vertex);
+			boolean vertexHighlighted = highlighted || parts && selection.isHighlighted(vertex);
+			if (vertexSelected || vertexHighlighted)
+				vertex.draw(g, vertexSelected, vertexHighlighted);
 		}
+	}
+
+	private static boolean isMarked(SelectionModel selection, Drawable part) {
+		return selection.isSelected(part) || selection.isHighlighted(part);
+	}
+
+	public void draw(DisplayList list) {
+		draw(list, NOTHING_SELECTED);
+	}
 
-		for (Drawable point : points) {
-			point.draw(g);
+	public void draw(DisplayList list, SelectionModel selection) {
+		boolean selected = selection.isSelected(this), highlighted = selection.isHighlighted(this);
+		boolean parts = selection.hasMarkedParts(this);
+
+		for (Edge edge : edges()) {
+			edge.draw(list, color, selected || parts && selection.isSelected(edge), highlighted || parts && selection.isHighlighted(edge));
+		}
+
+		for (Edge edge : edges()) {
+			Vertex vertex = edge.from;
+			vertex.draw(list, color, selected || parts && selection.isSelected(vertex), highlighted || parts && selection.isHighlighted(vertex));
+		}
+	}
+
+	// Fills the inside of the ring with the polygon's color, straight from its edges
+	public void fill(DisplayList list, float alpha) {
+		double[] ring = new double[2 * size];
+		int i = 0;
+		for (Edge edge : edges()) {
+			Point2D point = edge.from.getWorldPoint2D();
+			ring[i++] = point.getX();
+			ring[i++] = point.getY();
+		}
+
+		list.fill(List.of(ring), color, alpha);
+	}
+
+	public void fillOffset(DisplayList list, int offset, float alpha) {
+		if (offset == 0)
+			return;
+
+		List<double[]> rings = new ArrayList<>();
+		for (List<Point2D> contour : getOffsetContours(offset)) {
+			double[] ring = new double[2 * contour.size()];
+			int i = 0;
+			for (Point2D point : contour) {
+				ring[i++] = point.getX();
+				ring[i++] = point.getY();
+			}
+			rings.add(ring);
+		}
+
+		list.fill(rings, color, alpha);
+	}
+
+	public void drawOffset(DisplayList list, int offset) {
+		if (offset == 0)
+			return;
+
+		for (List<Point2D> contour : getOffsetContours(offset)) {
+			for (Segment segment : GeometryUtils.buildLineList(contour, null)) {
+				list.dashedLine((int) segment.getFrom().getX(), (int) segment.getFrom().getY(), (int) segment.getTo().getX(), (int) segment.getTo().getY(), color, DrawUtils.OFFSET_DASH);
+			}
 		}
 	}
 
 	public void drawOffset(Graphics2D g, int offset) {
+		g.setColor(color);
+		if (offset == 0.0) // there is no need for drawing anything
+			return;
+
+		DrawUtils.drawOffset(g, getOffsetContours(offset));
+	}
+
+	// Untangles the naive offset of the outline into the simple polygons that make up the actual offset contour
+	public List<List<Point2D>> getOffsetContours(int offset) {
 		class PointIndexed extends Point2D.Double {
 			private final int id;
 
@@ -134,9 +302,7 @@ public class Polygon implements Drawable {
 			}
 		}
 
-		g.setColor(color);
-		if (offset == 0.0) // there is no need for drawing anything
-			return;
+		List<List<Point2D>> contours = new ArrayList<>();
 
 		// Find naive offset vertices and corresponding edges
 		List<Point2D> naive = getNaiveOffset(offset);
@@ -150,7 +316,7 @@ public class Polygon implements Drawable {
 			segmentMap.put(l.getFrom(), l.getTo());
 
 			if (l.getFrom().getX() == starting.getX() ? l.getFrom().getY() < starting.getY() : l.getFrom().getX() < starting.getX())
-				if((GeometryUtils.crossProduct(prevv, l.getFrom(), l.getTo()) > 0) == clockwise)
+				if((GeometryUtils.crossProduct(prevv, l.getFrom(), l.getTo()) > 0) == isClockwiseOnScreen())
 					starting = l.getFrom();
 
 			prevv = l.getFrom();
@@ -235,42 +401,345 @@ public class Polygon implements Drawable {
 			if (start.totalWinding != 0)
 				continue;
 
-			// Draw the polygon
-			DrawUtils.drawOffset(g, polygon);
+			contours.add(polygon);
 		}
+
+		return contours;
 	}
 
 	@Override
 	public void move(int dx, int dy) {
-		Queue<Vertex> points = new LinkedList<>();
-		for (Edge segment : getEdges()) {
-			points.add(segment.getDrawableFrom());
+		transform(AffineTransform.getTranslateInstance(dx, dy));
+	}
+
+	// Applies t on top of whatever is pending; the vertices themselves are left alone until the next bake()
+	public void transform(AffineTransform t) {
+		if (transform == null)
+			transform = new AffineTransform(t);
+		else
+			transform.preConcatenate(t);
+
+		if (transform.isIdentity())
+			transform = null;
+	}
+
+	// Folds the pending transform into the vertex coordinates. Every vertex-level edit, snapshot and serialization
+	// goes through here first, so the rest of the geometry code only ever sees final coordinates.
+	public void bake() {
+		if (transform == null)
+			return;
+
+		AffineTransform t = transform;
+		transform = null;
+		bakes++;
+		for (Edge edge : edges()) {
+			Point2D point = edge.from.point2D;
+			t.transform(point, point);
 		}
 
-		for (Vertex point : points) {
-			point.translate(dx, dy);
+		updateClockwiseness();
+	}
+
+	// A baked rotation leaves H/V edges off their axis. Those still lying along it, or along the other one after a
+	// quarter turn, get the matching constraint and are snapped back onto the axis; the rest lose their constraint.
+	public void revalidateConstraints() {
+		bake();
+
+		List<Edge> constrained = new ArrayList<>();
+		for (Edge edge : edges()) {
+			if (edge.getConstraint() != Edge.Constraint.NONE) {
+				constrained.add(edge);
+				edge.restoreConstraint(Edge.Constraint.NONE);
+			}
 		}
+
+		for (Edge edge : constrained) {
+			if (!tryConstrain(edge, Edge.Constraint.HORIZONTAL))
+				tryConstrain(edge, Edge.Constraint.VERTICAL);
+		}
+
+		updateClockwiseness();
+	}
+
+	// Gives the edge the constraint if it lies on that axis (up to AXIS_TOLERANCE) and no neighbour has it already
+	private boolean tryConstrain(Edge edge, Edge.Constraint constraint) {
+		double dx = Math.abs(edge.to.point2D.getX() - edge.from.point2D.getX());
+		double dy = Math.abs(edge.to.point2D.getY() - edge.from.point2D.getY());
+
+		boolean onAxis = switch (constraint) {
+			case HORIZONTAL -> dy <= AXIS_TOLERANCE;
+			case VERTICAL -> dx <= AXIS_TOLERANCE;
+			case NONE -> false;
+		};
+		if (!onAxis || edge.conflicts(constraint))
+			return false;
+
+		edge.restoreConstraint(constraint);
+		if ((constraint == Edge.Constraint.HORIZONTAL ? dy : dx) != 0)
+			edge.snap();
+		return true;
+	}
+
+	/*
+	 * Batch topology edits: each one rebuilds the ring in a single pass and refreshes the orientation once, where
+	 * doing the same through Edge.divide or Vertex.delete would cost O(n) per element
+	 */
+
+	// Splits every edge into k + 1 equal pieces. A constrained edge hands its constraint to every other piece,
+	// starting with the first, so the outline stays constrained without two neighbours sharing an axis.
+	public void subdivide(int k) {
+		if (k <= 0)
+			return;
+
+		bake();
+		Edge[] old = edgeArray();
+		List<Edge> ring = new ArrayList<>(old.length * (k + 1));
+
+		for (Edge edge : old) {
+			Vertex end = edge.to;
+			Point2D a = edge.from.point2D, b = end.point2D;
+			Edge.Constraint constraint = edge.getConstraint();
+
+			Edge piece = edge;
+			ring.add(piece);
+			for (int j = 1; j <= k; j++) {
+				double t = (double) j / (k + 1);
+				Vertex middle = new Vertex(new Point2D.Double(a.getX() + t * (b.getX() - a.getX()), a.getY() + t * (b.getY() - a.getY())));
+
+				piece.setTo(middle);
+				middle.inEdge = piece;
+				piece = new Edge(this, middle, end);
+				piece.restoreConstraint(j % 2 == 0 ? constraint : Edge.Constraint.NONE);
+				ring.add(piece);
+			}
+		}
+
+		relink(ring);
+		updateClockwiseness();
+	}
+
+	// Drops every vertex closer than epsilon to the last one kept, never going below a triangle. An edge that now
+	// spans several old ones keeps a constraint from among them if it still lies on that axis. Returns how many
+	// vertices went.
+	public int thin(double epsilon) {
+		bake();
+		Edge[] old = edgeArray();
+		int n = old.length;
+
+		// kept.get(j) is the old edge leaving the j-th kept vertex; it will run to the next kept vertex
+		List<Edge> kept = new ArrayList<>(n);
+		List<Integer> firstOfRun = new ArrayList<>(n);
+		kept.add(old[0]);
+		firstOfRun.add(0);
+
+		int remaining = n;
+		for (int i = 1; i < n; i++) {
+			if (remaining > 3 && old[i].from.point2D.distance(kept.get(kept.size() - 1).from.point2D) < epsilon) {
+				remaining--;
+				continue;
+			}
+			kept.add(old[i]);
+			firstOfRun.add(i);
+		}
+
+		// The ring closes on the first vertex, which has to keep its distance from the last one as well
+		while (remaining > 3 && kept.size() > 1 && kept.get(kept.size() - 1).from.point2D.distance(old[0].from.point2D) < epsilon) {
+			kept.remove(kept.size() - 1);
+			firstOfRun.remove(firstOfRun.size() - 1);
+			remaining--;
+		}
+
+		if (kept.size() == n)
+			return 0;
+
+		// Constraint each merged edge would like to keep: the first one found along the run it replaces
+		int m = kept.size();
+		Edge.Constraint[] wanted = new Edge.Constraint[m];
+		boolean[] merged = new boolean[m];
+		for (int j = 0; j < m; j++) {
+			int from = firstOfRun.get(j), to = j + 1 < m ? firstOfRun.get(j + 1) : n;
+			merged[j] = to - from > 1;
+			wanted[j] = Edge.Constraint.NONE;
+			for (int i = from; i < to && wanted[j] == Edge.Constraint.NONE; i++) {
+				wanted[j] = old[i].getConstraint();
+			}
+			kept.get(j).restoreConstraint(Edge.Constraint.NONE);
+		}
+
+		relink(kept);
+
+		// Untouched edges get theirs back first, so a merged neighbour cannot take their axis
+		for (int j = 0; j < m; j++) {
+			if (!merged[j] && wanted[j] != Edge.Constraint.NONE)
+				tryConstrain(kept.get(j), wanted[j]);
+		}
+		for (int j = 0; j < m; j++) {
+			if (merged[j] && wanted[j] != Edge.Constraint.NONE)
+				tryConstrain(kept.get(j), wanted[j]);
+		}
+
+		updateClockwiseness();
+		return n - m;
+	}
+
+	// Visvalingam-Whyatt: keeps dropping the vertex whose triangle with its neighbours has the smallest area, until
+	// every vertex left spans at least minArea. Areas sit in a heap with lazy deletion, so this is O(n log n).
+	// Endpoints of constrained edges are never dropped, which keeps those edges exactly as they are. Returns how
+	// many vertices went.
+	public int simplify(double minArea) {
+		record Candidate(double area, int index) {
+		}
+
+		bake();
+		Edge[] old = edgeArray();
+		int n = old.length;
+
+		int[] prev = new int[n], next = new int[n];
+		boolean[] pinned = new boolean[n], removed = new boolean[n];
+		double[] area = new double[n];
+		PriorityQueue<Candidate> heap = new PriorityQueue<>(Comparator.comparingDouble(Candidate::area));
+
+		for (int i = 0; i < n; i++) {
+			prev[i] = (i + n - 1) % n;
+			next[i] = (i + 1) % n;
+			pinned[i] = old[i].getConstraint() != Edge.Constraint.NONE || old[prev[i]].getConstraint() != Edge.Constraint.NONE;
+		}
+		for (int i = 0; i < n; i++) {
+			if (!pinned[i]) {
+				area[i] = triangleArea(old[prev[i]], old[i], old[next[i]]);
+				heap.add(new Candidate(area[i], i));
+			}
+		}
+
+		int remaining = n;
+		while (remaining > 3 && !heap.isEmpty()) {
+			Candidate candidate = heap.poll();
+			int i = candidate.index();
+			if (removed[i] || candidate.area() != area[i])
+				continue;
+			if (candidate.area() >= minArea)
+				break;
+
+			removed[i] = true;
+			remaining--;
+			next[prev[i]] = next[i];
+			prev[next[i]] = prev[i];
+
+			// A neighbour never gets cheaper than the vertex that went before it, so removal order follows area
+			for (int j : new int[]{prev[i], next[i]}) {
+				if (pinned[j])
+					continue;
+				area[j] = Math.max(triangleArea(old[prev[j]], old[j], old[next[j]]), candidate.area());
+				heap.add(new Candidate(area[j], j));
+			}
+		}
+
+		if (remaining == n)
+			return 0;
+
+		List<Edge> kept = new ArrayList<>(remaining);
+		for (int i = 0; i < n; i++) {
+			if (!removed[i])
+				kept.add(old[i]);
+		}
+
+		relink(kept);
+		updateClockwiseness();
+		return n - remaining;
+	}
+
+	private static double triangleArea(Edge a, Edge b, Edge c) {
+		return Math.abs(GeometryUtils.crossProduct(a.from.point2D, b.from.point2D, c.from.point2D)) / 2;
+	}
+
+	private Edge[] edgeArray() {
+		Edge[] ring = new Edge[size];
+		int i = 0;
+		for (Edge edge : edges()) {
+			ring[i++] = edge;
+		}
+		return ring;
+	}
+
+	// Makes the given edges, in order, the whole ring; each one is pointed at the start of the next
+	private void relink(List<Edge> ring) {
+		int n = ring.size();
+		for (int i = 0; i < n; i++) {
+			Edge edge = ring.get(i);
+			Edge next = ring.get((i + 1) % n);
+
+			edge.setTo(next.from);
+			edge.next = next;
+			next.prev = edge;
+			next.from.inEdge = edge;
+			edge.from.outEdge = edge;
+		}
+
+		firstEdge = ring.get(0);
+		size = n;
 	}
 
+	// Axis-aligned bounds of the polygon as drawn
+	public Rectangle2D getBounds() {
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (Edge edge : edges()) {
+			Point2D point = edge.from.getWorldPoint2D();
+			minX = Math.min(minX, point.getX());
+			minY = Math.min(minY, point.getY());
+			maxX = Math.max(maxX, point.getX());
+			maxY = Math.max(maxY, point.getY());
+		}
+
+		return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+	}
+
+	Point2D toWorld(Point2D point) {
+		return transform == null ? point : transform.transform(point, null);
+	}
+
+	Point2D toLocal(Point2D point) {
+		if (transform == null)
+			return point;
+
+		try {
+			return transform.inverseTransform(point, null);
+		} catch (NoninvertibleTransformException e) {
+			return point;
+		}
+	}
+
+	// Edges and vertices are tested against the outline as drawn, each vertex mapped through the pending transform
+	// once, so the tolerance does not scale with it. Whether the point is inside does not depend on the transform, so
+	// that is decided in the untransformed coordinates, with the point mapped back once.
 	@Override
-	public Drawable hitTest(Point point) {
-		for (Edge segment : getEdges()) {
-			Drawable ret = segment.hitTest(point);
+	public Drawable hitTest(Point hit) {
+		Point2D a = null;
+		for (Edge segment : edges()) {
+			if (a == null)
+				a = toWorld(segment.from.point2D);
+			Point2D b = toWorld(segment.to.point2D);
+
+			Drawable ret = segment.hitTestWorld(a, b, hit);
 			if (ret != null)
 				return ret;
+			a = b;
 		}
 
+		Point2D point = toLocal(hit);
+		double x = point.getX(), y = point.getY();
 		boolean inside = false;
-		for (Edge edge : getEdges()) {
-			if ((edge.getFrom().getY() > point.y) != (edge.getTo().getY() > point.y) && point.x < (edge.getTo().getX() - edge.getFrom().getX()) * (point.y - edge.getFrom().getY()) / (edge.getTo().getY() - edge.getFrom().getY()) + edge.getFrom().getX())
+		for (Edge edge : edges()) {
+			Point2D from = edge.from.point2D, to = edge.to.point2D;
+			if ((from.getY() > y) != (to.getY() > y) && x < (to.getX() - from.getX()) * (y - from.getY()) / (to.getY() - from.getY()) + from.getX())
 				inside = !inside;
 		}
 
 		return inside ? this : null;
 	}
 
-	private void constructPointsAndEdges(LinkedList<Point> points) {
-		ListIterator<Point> iter = points.listIterator();
+	private void constructPointsAndEdges(List<? extends Point2D> points) {
+		Iterator<? extends Point2D> iter = points.iterator();
 		Vertex prev = new Vertex(iter.next());
 		Vertex first = prev;
 
@@ -288,9 +757,9 @@ public class Polygon implements Drawable {
 	public void updateClockwiseness() {
 		double determinant = 0;
 
-		for (Edge edge : getEdges()) {
-			Vertex prev = edge.from;
-			Vertex curr = edge.to;
+		for (Edge edge : edges()) {
+			Point2D prev = edge.from.point2D;
+			Point2D curr = edge.to.point2D;
 
 			determinant += (curr.getX() - prev.getX()) * (curr.getY() + prev.getY());
 		}
@@ -298,20 +767,25 @@ public class Polygon implements Drawable {
 		clockwise = determinant < 0;
 	}
 
+	// A mirroring transform flips the orientation of the ring as drawn
+	private boolean isClockwiseOnScreen() {
+		return clockwise != (transform != null && transform.getDeterminant() < 0);
+	}
+
 	private List<Point2D> getNaiveOffset(int offset) {
 		List<Point2D> ret = new ArrayList<>();
 
-		for (Edge edge : getEdges()) {
-			Vertex curr = edge.from;
-			Vertex prev = curr.inEdge.from;
-			Vertex next = curr.outEdge.to;
+		for (Edge edge : edges()) {
+			Point2D curr = edge.from.getWorldPoint2D();
+			Point2D prev = edge.prev.from.getWorldPoint2D();
+			Point2D next = edge.to.getWorldPoint2D();
 
-			Point2D cnN = GeometryUtils.vectorNormal(curr.getPoint2D(), next.getPoint2D());
-			Point2D pcN = GeometryUtils.vectorNormal(prev.getPoint2D(), curr.getPoint2D());
+			Point2D cnN = GeometryUtils.vectorNormal(curr, next);
+			Point2D pcN = GeometryUtils.vectorNormal(prev, curr);
 			Point2D bis = GeometryUtils.normalize(cnN.getX() + pcN.getX(), cnN.getY() + pcN.getY());
 
 			double bisLen = offset / Math.sqrt((1 + cnN.getX() * pcN.getX() + cnN.getY() * pcN.getY()) / 2.0);
-			if (!clockwise)
+			if (!isClockwiseOnScreen())
 				bisLen = -bisLen;
 			ret.add(new Point2D.Double(curr.getX() + bisLen * bis.getX(), curr.getY() + bisLen * bis.getY()));
 		}
@@ -340,7 +814,14 @@ public class Polygon implements Drawable {
 		l.next = e;
 	}
 
+	// Hands out single edges and vertices, so the pending transform is baked in first; the package's own drawing and
+	// hit-testing walk edges() and map coordinates themselves
 	public Iterable<Edge> getEdges() {
+		bake();
+		return edges();
+	}
+
+	Iterable<Edge> edges() {
 		return EdgeIterator::new;
 	}
 
@@ -348,13 +829,30 @@ public class Polygon implements Drawable {
 		return size;
 	}
 
+	public RingSnapshot captureRing() {
+		return new RingSnapshot(this);
+	}
+
+	public PolygonSnapshot snapshot() {
+		return new PolygonSnapshot(this);
+	}
+
+	// A snapshot of the polygon once it has only been moved or transformed as a whole since previous was taken from
+	// it: the vertices and constraints are shared and only the pending transform is copied, so it costs O(1)
+	// however large the ring. If the transform was baked in meanwhile, it is a full snapshot after all.
+	public PolygonSnapshot snapshotMoved(PolygonSnapshot previous) {
+		if (previous.getBakes() != bakes)
+			return snapshot();
+		return new PolygonSnapshot(previous, this);
+	}
+
 	void delete() {
 		deletionHandler.accept(this);
 	}
 
 	@Override
 	public String toString() {
-		return "Polygon " + id + " (" + size + " edges)";
+		return (id < 0 ? "Polygon copy" : "Polygon " + id) + " (" + size + " edges)";
 	}
 
 	public class EdgeIterator implements Iterator<Edge> {
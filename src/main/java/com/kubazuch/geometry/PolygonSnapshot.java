@@ -0,0 +1,106 @@
+package com.kubazuch.geometry;
+
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read-only copy of a polygon as drawn: vertex positions as plain coordinates, the constraint of the edge leaving
+// each vertex, and the colour. Unlike RingSnapshot it keeps nothing that refers back to the live polygon, so any
+// thread may hold on to it and read it while the editor carries on. Like the polygon it keeps the vertices apart
+// from the pending transform, so snapshots of a polygon that is only being dragged around share their vertices.
+public final class PolygonSnapshot {
+	private final double[] coords;
+	private final Edge.Constraint[] constraints;
+	private final Color color;
+	// The polygon's pending transform as m00, m10, m01, m11, m02, m12, null when there was none
+	private final double[] matrix;
+	// Polygon.bakes when the vertices were copied; they only match the polygon's while that has not changed
+	private final int bakes;
+
+	PolygonSnapshot(Polygon polygon) {
+		this.coords = new double[2 * polygon.size];
+		this.constraints = new Edge.Constraint[polygon.size];
+		this.color = polygon.getColor();
+		this.matrix = matrix(polygon.transform);
+		this.bakes = polygon.bakes;
+
+		// Read without baking, so publishing a snapshot never alters the polygon
+		int i = 0;
+		for (Edge edge : polygon.edges()) {
+			coords[2 * i] = edge.from.point2D.getX();
+			coords[2 * i + 1] = edge.from.point2D.getY();
+			constraints[i] = edge.getConstraint();
+			i++;
+		}
+	}
+
+	// previous with the polygon's current transform and colour; see Polygon.snapshotMoved
+	PolygonSnapshot(PolygonSnapshot previous, Polygon polygon) {
+		this.coords = previous.coords;
+		this.constraints = previous.constraints;
+		this.color = polygon.getColor();
+		this.matrix = matrix(polygon.transform);
+		this.bakes = previous.bakes;
+	}
+
+	private static double[] matrix(AffineTransform transform) {
+		if (transform == null)
+			return null;
+
+		double[] matrix = new double[6];
+		transform.getMatrix(matrix);
+		return matrix;
+	}
+
+	int getBakes() {
+		return bakes;
+	}
+
+	public int getSize() {
+		return constraints.length;
+	}
+
+	// Same arithmetic as AffineTransform.transform, so the coordinates match the live polygon's to the last bit
+	public double getX(int i) {
+		double x = coords[2 * i];
+		return matrix == null ? x : x * matrix[0] + coords[2 * i + 1] * matrix[2] + matrix[4];
+	}
+
+	public double getY(int i) {
+		double y = coords[2 * i + 1];
+		return matrix == null ? y : coords[2 * i] * matrix[1] + y * matrix[3] + matrix[5];
+	}
+
+	public Edge.Constraint getConstraint(int i) {
+		return constraints[i];
+	}
+
+	public Color getColor() {
+		return color;
+	}
+
+	// A new, independent polygon with this shape, e.g. for drawing the snapshot with the usual code. It is detached from
+	// the scene, so building one on any thread leaves the numbering of the scene's polygons alone.
+	public Polygon toPolygon() {
+		List<Point2D> points = new ArrayList<>(getSize());
+		for (int i = 0; i < getSize(); i++) {
+			points.add(new Point2D.Double(getX(i), getY(i)));
+		}
+		return Polygon.detached(points, constraints, color);
+	}
+
+	// x, y pairs of all vertices; a copy, so the snapshot stays immutable
+	public double[] getCoordinates() {
+		if (matrix == null)
+			return coords.clone();
+
+		double[] world = new double[coords.length];
+		for (int i = 0; i < getSize(); i++) {
+			world[2 * i] = getX(i);
+			world[2 * i + 1] = getY(i);
+		}
+		return world;
+	}
+}
@@ -0,0 +1,77 @@
+package com.kubazuch.geometry;
+
+import java.awt.geom.Point2D;
+
+// Structural snapshot of a polygon's edge ring: the edge objects in order together with vertex positions and
+// constraints. Restoring relinks the very same objects, so anything still referencing them stays valid.
+public class RingSnapshot {
+	private final Polygon polygon;
+	private final Edge[] edges;
+	private final double[] coords;
+	private final Edge.Constraint[] constraints;
+
+	RingSnapshot(Polygon polygon) {
+		this.polygon = polygon;
+		this.edges = new Edge[polygon.size];
+		this.coords = new double[2 * polygon.size];
+		this.constraints = new Edge.Constraint[polygon.size];
+
+		// Positions as drawn, read without baking the pending transform, so taking a snapshot never alters the polygon
+		int i = 0;
+		for (Edge edge : polygon.edges()) {
+			Point2D point = edge.from.getWorldPoint2D();
+			edges[i] = edge;
+			coords[2 * i] = point.getX();
+			coords[2 * i + 1] = point.getY();
+			constraints[i] = edge.getConstraint();
+			i++;
+		}
+	}
+
+	public Polygon getPolygon() {
+		return polygon;
+	}
+
+	public int getSize() {
+		return edges.length;
+	}
+
+	public double getX(int i) {
+		return coords[2 * i];
+	}
+
+	public double getY(int i) {
+		return coords[2 * i + 1];
+	}
+
+	public Edge.Constraint getConstraint(int i) {
+		return constraints[i];
+	}
+
+	public void restore() {
+		polygon.bake();
+
+		int n = edges.length;
+		for (int i = 0; i < n; i++) {
+			Edge edge = edges[i];
+			Edge next = edges[(i + 1) % n];
+
+			edge.next = next;
+			next.prev = edge;
+			edge.from.point2D.setLocation(coords[2 * i], coords[2 * i + 1]);
+			edge.from.outEdge = edge;
+			edge.setTo(next.from);
+			next.from.inEdge = edge;
+			edge.restoreConstraint(constraints[i]);
+		}
+
+		polygon.firstEdge = edges[0];
+		polygon.size = n;
+		polygon.updateClockwiseness();
+	}
+
+	public long estimateBytes() {
+		// edge reference + two coordinates + constraint reference per edge, plus array headers
+		return 64 + (long) edges.length * 32;
+	}
+}
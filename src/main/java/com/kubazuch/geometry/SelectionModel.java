@@ -0,0 +1,99 @@
+package com.kubazuch.geometry;
+
+import java.util.*;
+
+// What is selected and what is under the mouse. The canvas owns it instead of geometry carrying flags, so changing
+// either is O(1) however large the polygon; drawing asks about single elements. A selected or highlighted polygon
+// marks all of its edges and vertices.
+public class SelectionModel {
+	private final Set<Drawable> selected = new LinkedHashSet<>();
+	private Drawable highlighted;
+
+	// Number of selected or highlighted edges and vertices per polygon; polygons without any draw their parts in bulk
+	private final Map<Polygon, Integer> markedParts = new IdentityHashMap<>();
+
+	public boolean isSelected(Drawable drawable) {
+		return selected.contains(drawable);
+	}
+
+	public boolean isHighlighted(Drawable drawable) {
+		return drawable != null && drawable == highlighted;
+	}
+
+	public Set<Drawable> getSelected() {
+		return Collections.unmodifiableSet(selected);
+	}
+
+	// The most recently selected element, the one the side panel shows
+	public Drawable getPrimary() {
+		Drawable last = null;
+		for (Drawable drawable : selected) {
+			last = drawable;
+		}
+		return last;
+	}
+
+	public int size() {
+		return selected.size();
+	}
+
+	// Replaces the selection by the one element, or clears it for null
+	public void set(Drawable drawable) {
+		for (Drawable old : selected) {
+			unmark(old);
+		}
+		selected.clear();
+
+		if (drawable != null)
+			add(drawable);
+	}
+
+	public void add(Drawable drawable) {
+		if (selected.add(drawable))
+			mark(drawable);
+	}
+
+	public void remove(Drawable drawable) {
+		if (selected.remove(drawable))
+			unmark(drawable);
+	}
+
+	public Drawable getHighlighted() {
+		return highlighted;
+	}
+
+	public void setHighlighted(Drawable drawable) {
+		if (drawable == highlighted)
+			return;
+
+		if (highlighted != null)
+			unmark(highlighted);
+		highlighted = drawable;
+		if (highlighted != null)
+			mark(highlighted);
+	}
+
+	boolean hasMarkedParts(Polygon polygon) {
+		return markedParts.containsKey(polygon);
+	}
+
+	private void mark(Drawable drawable) {
+		Polygon owner = partOwner(drawable);
+		if (owner != null)
+			markedParts.merge(owner, 1, Integer::sum);
+	}
+
+	private void unmark(Drawable drawable) {
+		Polygon owner = partOwner(drawable);
+		if (owner != null)
+			markedParts.computeIfPresent(owner, (polygon, count) -> count == 1 ? null : count - 1);
+	}
+
+	private static Polygon partOwner(Drawable drawable) {
+		if (drawable instanceof Edge edge)
+			return edge.parent;
+		if (drawable instanceof Vertex vertex)
+			return vertex.inEdge.parent;
+		return null;
+	}
+}
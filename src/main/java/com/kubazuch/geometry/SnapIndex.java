@@ -0,0 +1,230 @@
+package com.kubazuch.geometry;
+
+import java.awt.geom.Point2D;
+import java.util.*;
+
+// Where a point being placed or dragged snaps to: a scene vertex, the closest point of an edge or a grid node.
+// Vertices and edges are filed into grid cells at least twice the snap distance wide, so a lookup only looks at the
+// few cells around the mouse. Moving a vertex or an edge re-files just it and the neighbours its constraints drag
+// along; anything that reshapes polygons wholesale makes the next lookup rebuild the index.
+public class SnapIndex {
+	public static final int SNAP_DISTANCE = 8;
+	private static final double CELL_SIZE = 32;
+
+	public enum Kind {
+		VERTEX, EDGE, GRID
+	}
+
+	public record Target(Point2D point, Kind kind) {
+	}
+
+	private final Iterable<Polygon> polygons;
+
+	private final Map<Long, List<Vertex>> vertexCells = new HashMap<>();
+	private final Map<Long, List<Edge>> edgeCells = new HashMap<>();
+	private final Map<Vertex, Long> vertexKeys = new IdentityHashMap<>();
+	private final Map<Edge, long[]> edgeKeys = new IdentityHashMap<>();
+
+	// Vertices taken out before a move, filed again at their new place on the next lookup
+	private final Set<Vertex> stale = Collections.newSetFromMap(new IdentityHashMap<>());
+	private boolean dirty = true;
+
+	private boolean toVertices = true, toEdges = true;
+	private int gridSize;
+
+	public SnapIndex(Iterable<Polygon> polygons) {
+		this.polygons = polygons;
+	}
+
+	public void setSnapToVertices(boolean toVertices) {
+		this.toVertices = toVertices;
+	}
+
+	public void setSnapToEdges(boolean toEdges) {
+		this.toEdges = toEdges;
+	}
+
+	// Grid spacing in pixels, 0 for no grid
+	public void setGridSize(int gridSize) {
+		this.gridSize = gridSize;
+	}
+
+	public void invalidate() {
+		dirty = true;
+	}
+
+	// The vertex is about to move, and through its edges' constraints possibly its neighbours as well
+	public void vertexMoving(Vertex vertex) {
+		if (dirty)
+			return;
+
+		unfile(vertex.inEdge.from);
+		unfile(vertex);
+		unfile(vertex.outEdge.to);
+	}
+
+	public void edgeMoving(Edge edge) {
+		if (dirty)
+			return;
+
+		unfile(edge.prev.from);
+		unfile(edge.from);
+		unfile(edge.to);
+		unfile(edge.next.to);
+	}
+
+	// Where the point snaps to, or null if nothing is close enough. The ignored vertex, the one being dragged, is
+	// left out together with its neighbours and edges so that it does not snap to itself.
+	public Target snap(Point2D point, Vertex ignored) {
+		if (toVertices || toEdges)
+			flush();
+
+		Target target = null;
+		if (toVertices)
+			target = nearestVertex(point, ignored);
+		if (target == null && toEdges)
+			target = nearestEdgePoint(point, ignored);
+		if (target == null && gridSize > 0)
+			target = new Target(new Point2D.Double(Math.round(point.getX() / gridSize) * gridSize, Math.round(point.getY() / gridSize) * gridSize), Kind.GRID);
+		return target;
+	}
+
+	private Target nearestVertex(Point2D point, Vertex ignored) {
+		Vertex best = null;
+		double bestDistance = SNAP_DISTANCE;
+
+		for (long key : cellsAround(point)) {
+			List<Vertex> bucket = vertexCells.get(key);
+			if (bucket == null)
+				continue;
+
+			for (Vertex vertex : bucket) {
+				if (ignored != null && (vertex == ignored || vertex == ignored.inEdge.from || vertex == ignored.outEdge.to))
+					continue;
+
+				double distance = vertex.getWorldPoint2D().distance(point);
+				if (distance <= bestDistance) {
+					best = vertex;
+					bestDistance = distance;
+				}
+			}
+		}
+		return best == null ? null : new Target((Point2D) best.getWorldPoint2D().clone(), Kind.VERTEX);
+	}
+
+	private Target nearestEdgePoint(Point2D point, Vertex ignored) {
+		Point2D best = null;
+		double bestDistance = SNAP_DISTANCE;
+
+		for (long key : cellsAround(point)) {
+			List<Edge> bucket = edgeCells.get(key);
+			if (bucket == null)
+				continue;
+
+			for (Edge edge : bucket) {
+				if (ignored != null && (edge == ignored.inEdge || edge == ignored.outEdge))
+					continue;
+
+				Point2D projection = project(edge.toWorld(), point);
+				double distance = projection.distance(point);
+				if (distance <= bestDistance) {
+					best = projection;
+					bestDistance = distance;
+				}
+			}
+		}
+		return best == null ? null : new Target(best, Kind.EDGE);
+	}
+
+	// Closest point of the segment
+	private static Point2D project(Segment segment, Point2D point) {
+		Point2D a = segment.getFrom(), b = segment.getTo();
+		double dx = b.getX() - a.getX(), dy = b.getY() - a.getY();
+		double lengthSq = dx * dx + dy * dy;
+		if (lengthSq == 0)
+			return new Point2D.Double(a.getX(), a.getY());
+
+		double t = ((point.getX() - a.getX()) * dx + (point.getY() - a.getY()) * dy) / lengthSq;
+		t = Math.max(0, Math.min(1, t));
+		return new Point2D.Double(a.getX() + t * dx, a.getY() + t * dy);
+	}
+
+	// Anything within the snap distance of the point lies in one of these cells
+	private static long[] cellsAround(Point2D point) {
+		int minX = (int) Math.floor((point.getX() - SNAP_DISTANCE) / CELL_SIZE), maxX = (int) Math.floor((point.getX() + SNAP_DISTANCE) / CELL_SIZE);
+		int minY = (int) Math.floor((point.getY() - SNAP_DISTANCE) / CELL_SIZE), maxY = (int) Math.floor((point.getY() + SNAP_DISTANCE) / CELL_SIZE);
+
+		long[] keys = new long[(maxX - minX + 1) * (maxY - minY + 1)];
+		int i = 0;
+		for (int cx = minX; cx <= maxX; cx++) {
+			for (int cy = minY; cy <= maxY; cy++) {
+				keys[i++] = ChainIndex.key(cx, cy);
+			}
+		}
+		return keys;
+	}
+
+	private void flush() {
+		if (dirty) {
+			vertexCells.clear();
+			edgeCells.clear();
+			vertexKeys.clear();
+			edgeKeys.clear();
+			stale.clear();
+
+			for (Polygon polygon : polygons) {
+				for (Edge edge : polygon.edges()) {
+					file(edge.from);
+					file(edge);
+				}
+			}
+			dirty = false;
+			return;
+		}
+
+		for (Vertex vertex : stale) {
+			file(vertex);
+			if (!edgeKeys.containsKey(vertex.inEdge))
+				file(vertex.inEdge);
+			if (!edgeKeys.containsKey(vertex.outEdge))
+				file(vertex.outEdge);
+		}
+		stale.clear();
+	}
+
+	private void file(Vertex vertex) {
+		Point2D point = vertex.getWorldPoint2D();
+		long key = ChainIndex.key((int) Math.floor(point.getX() / CELL_SIZE), (int) Math.floor(point.getY() / CELL_SIZE));
+		vertexCells.computeIfAbsent(key, k -> new ArrayList<>(4)).add(vertex);
+		vertexKeys.put(vertex, key);
+	}
+
+	private void file(Edge edge) {
+		List<Long> keys = new ArrayList<>(4);
+		ChainIndex.forEachCell(edge.toWorld(), CELL_SIZE, key -> {
+			edgeCells.computeIfAbsent(key, k -> new ArrayList<>(4)).add(edge);
+			keys.add(key);
+		});
+		edgeKeys.put(edge, keys.stream().mapToLong(Long::longValue).toArray());
+	}
+
+	private void unfile(Vertex vertex) {
+		Long key = vertexKeys.remove(vertex);
+		if (key != null)
+			vertexCells.get(key).remove(vertex);
+
+		unfile(vertex.inEdge);
+		unfile(vertex.outEdge);
+		stale.add(vertex);
+	}
+
+	private void unfile(Edge edge) {
+		long[] keys = edgeKeys.remove(edge);
+		if (keys == null)
+			return;
+
+		for (long key : keys) {
+			edgeCells.get(key).remove(edge);
+		}
+	}
+}
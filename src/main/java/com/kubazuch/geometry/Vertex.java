@@ -1,13 +1,13 @@
 package com.kubazuch.geometry;
 
 import com.kubazuch.DrawUtils;
+import com.kubazuch.render.DisplayList;
 
 import java.awt.*;
 import java.awt.geom.Point2D;
 
 public class Vertex implements Drawable {
-	private Point2D point2D;
-	private boolean selected, highlighted;
+	Point2D point2D;
 
 	Edge inEdge, outEdge;
 
@@ -16,14 +16,17 @@ public class Vertex implements Drawable {
 	}
 
 	public Point2D getPoint2D() {
+		bake();
 		return point2D;
 	}
 
 	public double getX() {
+		bake();
 		return point2D.getX();
 	}
 
 	public double getY() {
+		bake();
 		return point2D.getY();
 	}
 
@@ -36,21 +39,39 @@ public class Vertex implements Drawable {
 	}
 
 	public void setPoint2D(Point2D point2D) {
+		bake();
 		this.point2D = point2D;
 	}
 
-	@Override
-	public void setSelected(boolean selected) {
-		this.selected = selected;
+	// Position as drawn, with the polygon's pending transform applied
+	Point2D getWorldPoint2D() {
+		return inEdge == null ? point2D : inEdge.parent.toWorld(point2D);
 	}
 
-	@Override
-	public void setHighlighted(boolean highlighted) {
-		this.highlighted = highlighted;
+	// Whoever reads or writes a single vertex from outside wants real coordinates, so the pending transform goes in first
+	private void bake() {
+		if (inEdge != null)
+			inEdge.parent.bake();
+	}
+
+	public Edge getInEdge() {
+		return inEdge;
+	}
+
+	public Edge getOutEdge() {
+		return outEdge;
+	}
+
+	public Polygon getPolygon() {
+		return inEdge.parent;
 	}
 
 	@Override
 	public void draw(Graphics2D g) {
+		draw(g, false, false);
+	}
+
+	void draw(Graphics2D g, boolean selected, boolean highlighted) {
 		Color old = g.getColor();
 
         if(selected)
@@ -58,16 +79,28 @@ public class Vertex implements Drawable {
         else if(highlighted)
             g.setColor(old.brighter());
 
+		Point2D world = getWorldPoint2D();
 		if(selected || highlighted)
-			DrawUtils.drawPoint(g, point2D, DrawUtils.SELECTED_POINT_RADIUS);
+			DrawUtils.drawPoint(g, world, DrawUtils.SELECTED_POINT_RADIUS);
 		else
-			DrawUtils.drawPoint(g, point2D);
+			DrawUtils.drawPoint(g, world);
 
         g.setColor(old);
 	}
 
+	void draw(DisplayList list, Color color, boolean selected, boolean highlighted) {
+		if (selected)
+			color = color.darker();
+		else if (highlighted)
+			color = color.brighter();
+
+		Point2D world = getWorldPoint2D();
+		list.disc((int) world.getX(), (int) world.getY(), selected || highlighted ? DrawUtils.SELECTED_POINT_RADIUS : GeometryUtils.POINT_RADIUS, color);
+	}
+
 	@Override
 	public void move(int dx, int dy) {
+		bake();
 		translate(dx, dy);
 
 		if(inEdge.getConstraint() == Edge.Constraint.HORIZONTAL) {
@@ -93,7 +126,7 @@ public class Vertex implements Drawable {
 
 	@Override
 	public Drawable hitTest(Point hit) {
-		return GeometryUtils.pointHitTest(point2D, hit) ? this : null;
+		return GeometryUtils.pointHitTest(getWorldPoint2D(), hit) ? this : null;
 	}
 
 	public Drawable delete() {
@@ -119,4 +152,21 @@ public class Vertex implements Drawable {
 
 		return inEdge;
 	}
+
+	public void reinsert() {
+		inEdge.parent.bake();
+		Edge following = outEdge.next;
+
+		inEdge.next = outEdge;
+		outEdge.prev = inEdge;
+		outEdge.next = following;
+		following.prev = outEdge;
+
+		inEdge.setTo(this);
+		outEdge.to.inEdge = outEdge;
+
+		inEdge.parent.size++;
+
+		inEdge.parent.updateClockwiseness();
+	}
 }
@@ -0,0 +1,33 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Circle;
+import com.kubazuch.scene.Scene;
+
+public class AddCircleCommand implements Command {
+	private final Scene scene;
+	private final Circle circle;
+
+	public AddCircleCommand(Scene scene, Circle circle) {
+		this.scene = scene;
+		this.circle = circle;
+	}
+
+	@Override
+	public void redo() {
+		scene.getCircles().add(circle);
+	}
+
+	@Override
+	public void undo() {
+		scene.getCircles().remove(circle);
+	}
+
+	@Override
+	public long estimateBytes() {
+		return 48;
+	}
+
+	public Circle getAdded() {
+		return circle;
+	}
+}
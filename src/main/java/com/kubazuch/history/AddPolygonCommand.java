@@ -0,0 +1,34 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.scene.Scene;
+
+public class AddPolygonCommand implements Command {
+	private final Scene scene;
+	private final Polygon polygon;
+
+	public AddPolygonCommand(Scene scene, Polygon polygon) {
+		this.scene = scene;
+		this.polygon = polygon;
+	}
+
+	@Override
+	public void redo() {
+		scene.getPolygons().addFirst(polygon);
+	}
+
+	@Override
+	public void undo() {
+		scene.getPolygons().remove(polygon);
+	}
+
+	@Override
+	public long estimateBytes() {
+		// the polygon itself stays reachable from the history once it is removed again
+		return 32 + 96L * polygon.getSize();
+	}
+
+	public Polygon getAdded() {
+		return polygon;
+	}
+}
@@ -0,0 +1,39 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.RingSnapshot;
+
+import java.util.List;
+
+// Structural snapshot of every polygon touched since the previous checkpoint. Undoing across it puts the rings
+// back exactly, so rounding in inverted moves cannot accumulate over long sessions.
+public class Checkpoint implements Command {
+	private final List<RingSnapshot> rings;
+
+	Checkpoint(List<RingSnapshot> rings) {
+		this.rings = rings;
+	}
+
+	public List<RingSnapshot> getRings() {
+		return rings;
+	}
+
+	@Override
+	public void redo() {
+	}
+
+	@Override
+	public void undo() {
+		for (RingSnapshot ring : rings) {
+			ring.restore();
+		}
+	}
+
+	@Override
+	public long estimateBytes() {
+		long bytes = 32;
+		for (RingSnapshot ring : rings) {
+			bytes += ring.estimateBytes();
+		}
+		return bytes;
+	}
+}
@@ -0,0 +1,44 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.scene.Scene;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ClearCommand implements Command {
+	private final Scene scene;
+	private final List<Polygon> removed;
+	private final long bytes;
+
+	public ClearCommand(Scene scene) {
+		this.scene = scene;
+		this.removed = new ArrayList<>(scene.getPolygons().getSize());
+
+		long bytes = 32;
+		for (Polygon polygon : scene.getPolygons()) {
+			removed.add(polygon);
+			bytes += 8 + 96L * polygon.getSize();
+		}
+		this.bytes = bytes;
+	}
+
+	@Override
+	public void redo() {
+		scene.getPolygons().clear();
+	}
+
+	@Override
+	public void undo() {
+		scene.getPolygons().addAll(0, removed);
+	}
+
+	@Override
+	public long estimateBytes() {
+		return bytes;
+	}
+
+	public List<Polygon> getRemoved() {
+		return removed;
+	}
+}
@@ -0,0 +1,43 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Polygon;
+
+import java.awt.Color;
+
+public class ColorCommand implements Command {
+	private final Polygon polygon;
+	private final Color oldColor, newColor;
+
+	public ColorCommand(Polygon polygon, Color color) {
+		this.polygon = polygon;
+		this.oldColor = polygon.getColor();
+		this.newColor = color;
+	}
+
+	@Override
+	public void redo() {
+		polygon.setColor(newColor);
+	}
+
+	@Override
+	public void undo() {
+		polygon.setColor(oldColor);
+	}
+
+	@Override
+	public long estimateBytes() {
+		return 24;
+	}
+
+	public Polygon getTarget() {
+		return polygon;
+	}
+
+	public Color getColor() {
+		return newColor;
+	}
+
+	public Color getOldColor() {
+		return oldColor;
+	}
+}
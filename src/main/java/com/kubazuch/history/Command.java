@@ -0,0 +1,22 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Polygon;
+
+public interface Command {
+	void redo();
+
+	void undo();
+
+	// Rough number of bytes the command keeps alive while it sits in the history
+	long estimateBytes();
+
+	// Polygon whose ring the command touches, if any; used for checkpoints
+	default Polygon getPolygon() {
+		return null;
+	}
+
+	// Tries to absorb a command performed right after this one, e.g. consecutive drag steps
+	default boolean merge(Command next) {
+		return false;
+	}
+}
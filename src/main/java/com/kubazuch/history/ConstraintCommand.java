@@ -0,0 +1,60 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Edge;
+import com.kubazuch.geometry.Polygon;
+
+public class ConstraintCommand implements Command {
+	private final Edge edge;
+	private final Edge.Constraint oldConstraint, newConstraint;
+	private final double fromX, fromY, toX, toY;
+
+	public ConstraintCommand(Edge edge, Edge.Constraint constraint) {
+		this.edge = edge;
+		this.oldConstraint = edge.getConstraint();
+		this.newConstraint = constraint;
+		this.fromX = edge.getDrawableFrom().getX();
+		this.fromY = edge.getDrawableFrom().getY();
+		this.toX = edge.getDrawableTo().getX();
+		this.toY = edge.getDrawableTo().getY();
+	}
+
+	@Override
+	public void redo() {
+		edge.setConstraint(newConstraint);
+	}
+
+	@Override
+	public void undo() {
+		edge.getDrawableFrom().getPoint2D().setLocation(fromX, fromY);
+		edge.getDrawableTo().getPoint2D().setLocation(toX, toY);
+		edge.setConstraint(oldConstraint);
+		edge.getPolygon().updateClockwiseness();
+	}
+
+	@Override
+	public long estimateBytes() {
+		return 64;
+	}
+
+	@Override
+	public Polygon getPolygon() {
+		return edge.getPolygon();
+	}
+
+	public Edge getEdge() {
+		return edge;
+	}
+
+	public Edge.Constraint getConstraint() {
+		return newConstraint;
+	}
+
+	public Edge.Constraint getOldConstraint() {
+		return oldConstraint;
+	}
+
+	// Endpoint positions before the constraint snapped them: fromX, fromY, toX, toY
+	public double[] getOldEndpoints() {
+		return new double[]{fromX, fromY, toX, toY};
+	}
+}
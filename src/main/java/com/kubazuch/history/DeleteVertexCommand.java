@@ -0,0 +1,58 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Edge;
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.geometry.Vertex;
+
+public class DeleteVertexCommand implements Command {
+	private final Vertex vertex;
+	private final Edge inEdge, outEdge;
+	private final Edge.Constraint inConstraint, outConstraint;
+
+	public DeleteVertexCommand(Vertex vertex) {
+		this.vertex = vertex;
+		this.inEdge = vertex.getInEdge();
+		this.outEdge = vertex.getOutEdge();
+		this.inConstraint = inEdge.getConstraint();
+		this.outConstraint = outEdge.getConstraint();
+	}
+
+	@Override
+	public void redo() {
+		vertex.delete();
+	}
+
+	@Override
+	public void undo() {
+		vertex.reinsert();
+		inEdge.setConstraint(inConstraint);
+		outEdge.setConstraint(outConstraint);
+	}
+
+	@Override
+	public long estimateBytes() {
+		return 48;
+	}
+
+	@Override
+	public Polygon getPolygon() {
+		return inEdge.getPolygon();
+	}
+
+	public Vertex getVertex() {
+		return vertex;
+	}
+
+	public Edge.Constraint getInConstraint() {
+		return inConstraint;
+	}
+
+	public Edge.Constraint getOutConstraint() {
+		return outConstraint;
+	}
+
+	// Edge that replaces the two edges adjacent to the deleted vertex
+	public Edge getMergedEdge() {
+		return inEdge;
+	}
+}
@@ -0,0 +1,181 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.geometry.RingSnapshot;
+
+import java.util.*;
+
+public class History {
+	private final Deque<Command> undoStack = new ArrayDeque<>();
+	private final Deque<Command> redoStack = new ArrayDeque<>();
+	private final Set<Polygon> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final List<HistoryListener> listeners = new ArrayList<>();
+
+	private long byteBudget;
+	private final int checkpointInterval;
+
+	private long usedBytes;
+	private int sinceCheckpoint;
+	private boolean sealed = true;
+	private boolean executing;
+	// Set once enough commands went by; the checkpoint waits for the next undo entry so it never splits a gesture
+	private boolean checkpointDue;
+
+	public History(long byteBudget, int checkpointInterval) {
+		this.byteBudget = byteBudget;
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	public void perform(Command command) {
+		// A command performed from inside another would bypass the undo stack and every listener
+		if (executing)
+			throw new IllegalStateException("Command performed while another one is being applied");
+
+		if (sealed && checkpointDue)
+			checkpoint();
+
+		apply(command, false);
+		clearRedo();
+
+		if (!sealed && !undoStack.isEmpty()) {
+			Command last = undoStack.peekLast();
+			long before = last.estimateBytes();
+			if (last.merge(command)) {
+				usedBytes += last.estimateBytes() - before;
+				trim();
+				return;
+			}
+		}
+
+		sealed = false;
+		push(command);
+
+		if (command.getPolygon() != null)
+			touched.add(command.getPolygon());
+
+		if (++sinceCheckpoint >= checkpointInterval)
+			checkpointDue = true;
+
+		trim();
+	}
+
+	// Prevents the next command from being merged into the previous one; called at the start of every gesture
+	public void seal() {
+		sealed = true;
+	}
+
+	public boolean canUndo() {
+		return !undoStack.isEmpty();
+	}
+
+	public boolean canRedo() {
+		return !redoStack.isEmpty();
+	}
+
+	public void undo() {
+		while (!undoStack.isEmpty()) {
+			Command command = undoStack.removeLast();
+			apply(command, true);
+			redoStack.addLast(command);
+
+			if (!(command instanceof Checkpoint))
+				break;
+		}
+
+		sealed = true;
+	}
+
+	public void redo() {
+		while (!redoStack.isEmpty()) {
+			Command command = redoStack.removeLast();
+			apply(command, false);
+			undoStack.addLast(command);
+
+			if (!(redoStack.peekLast() instanceof Checkpoint))
+				break;
+		}
+
+		sealed = true;
+	}
+
+	public void clear() {
+		undoStack.clear();
+		redoStack.clear();
+		touched.clear();
+		usedBytes = 0;
+		sinceCheckpoint = 0;
+		checkpointDue = false;
+		sealed = true;
+	}
+
+	public long getUsedBytes() {
+		return usedBytes;
+	}
+
+	public long getByteBudget() {
+		return byteBudget;
+	}
+
+	public void setByteBudget(long byteBudget) {
+		this.byteBudget = byteBudget;
+		trim();
+	}
+
+	public void addListener(HistoryListener listener) {
+		listeners.add(listener);
+	}
+
+	private void apply(Command command, boolean undo) {
+		for (HistoryListener listener : listeners) {
+			listener.beforeApply(command, undo);
+		}
+
+		executing = true;
+		try {
+			if (undo)
+				command.undo();
+			else
+				command.redo();
+		} finally {
+			executing = false;
+		}
+
+		for (HistoryListener listener : listeners) {
+			listener.afterApply(command, undo);
+		}
+	}
+
+	private void push(Command command) {
+		undoStack.addLast(command);
+		usedBytes += command.estimateBytes();
+	}
+
+	private void checkpoint() {
+		List<RingSnapshot> rings = new ArrayList<>(touched.size());
+		for (Polygon polygon : touched) {
+			rings.add(polygon.captureRing());
+		}
+
+		touched.clear();
+		sinceCheckpoint = 0;
+		checkpointDue = false;
+		push(new Checkpoint(rings));
+	}
+
+	private void clearRedo() {
+		for (Command command : redoStack) {
+			usedBytes -= command.estimateBytes();
+		}
+		redoStack.clear();
+	}
+
+	// Oldest undo entries go first, then the redo entries furthest from the current state
+	private void trim() {
+		while (usedBytes > byteBudget && !undoStack.isEmpty()) {
+			usedBytes -= undoStack.removeFirst().estimateBytes();
+		}
+		while (usedBytes > byteBudget && !redoStack.isEmpty()) {
+			usedBytes -= redoStack.removeFirst().estimateBytes();
+		}
+	}
+}
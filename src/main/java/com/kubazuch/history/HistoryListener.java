@@ -0,0 +1,10 @@
+package com.kubazuch.history;
+
+public interface HistoryListener {
+	// Called right before a command is applied, while the scene is still in the state the command starts from
+	void beforeApply(Command command, boolean undo);
+
+	// Called once the command has been applied; never called for a command that threw instead
+	default void afterApply(Command command, boolean undo) {
+	}
+}
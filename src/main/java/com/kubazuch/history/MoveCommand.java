@@ -0,0 +1,62 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.*;
+
+public class MoveCommand implements Command {
+	private final Drawable target;
+	private int dx, dy;
+
+	public MoveCommand(Drawable target, int dx, int dy) {
+		this.target = target;
+		this.dx = dx;
+		this.dy = dy;
+	}
+
+	@Override
+	public void redo() {
+		target.move(dx, dy);
+	}
+
+	@Override
+	public void undo() {
+		target.move(-dx, -dy);
+	}
+
+	@Override
+	public long estimateBytes() {
+		return 24;
+	}
+
+	@Override
+	public Polygon getPolygon() {
+		if (target instanceof Polygon polygon)
+			return polygon;
+		if (target instanceof Edge edge)
+			return edge.getPolygon();
+		if (target instanceof Vertex vertex)
+			return vertex.getPolygon();
+		return null;
+	}
+
+	@Override
+	public boolean merge(Command next) {
+		if (!(next instanceof MoveCommand move) || move.target != target)
+			return false;
+
+		dx += move.dx;
+		dy += move.dy;
+		return true;
+	}
+
+	public Drawable getTarget() {
+		return target;
+	}
+
+	public int getDx() {
+		return dx;
+	}
+
+	public int getDy() {
+		return dy;
+	}
+}
@@ -0,0 +1,51 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Circle;
+
+public class RadiusCommand implements Command {
+	private final Circle circle;
+	private final int oldRadius;
+	private int newRadius;
+
+	public RadiusCommand(Circle circle, int radius) {
+		this.circle = circle;
+		this.oldRadius = circle.getRadius();
+		this.newRadius = radius;
+	}
+
+	@Override
+	public void redo() {
+		circle.setRadius(newRadius);
+	}
+
+	@Override
+	public void undo() {
+		circle.setRadius(oldRadius);
+	}
+
+	@Override
+	public long estimateBytes() {
+		return 24;
+	}
+
+	@Override
+	public boolean merge(Command next) {
+		if (!(next instanceof RadiusCommand radius) || radius.circle != circle)
+			return false;
+
+		newRadius = radius.newRadius;
+		return true;
+	}
+
+	public Circle getTarget() {
+		return circle;
+	}
+
+	public int getRadius() {
+		return newRadius;
+	}
+
+	public int getOldRadius() {
+		return oldRadius;
+	}
+}
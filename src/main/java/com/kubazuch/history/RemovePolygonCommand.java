@@ -0,0 +1,39 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.scene.Scene;
+
+public class RemovePolygonCommand implements Command {
+	private final Scene scene;
+	private final Polygon polygon;
+	private int index = -1;
+
+	public RemovePolygonCommand(Scene scene, Polygon polygon) {
+		this.scene = scene;
+		this.polygon = polygon;
+	}
+
+	@Override
+	public void redo() {
+		index = scene.getPolygons().indexOf(polygon);
+		scene.getPolygons().remove(index);
+	}
+
+	@Override
+	public void undo() {
+		scene.getPolygons().add(index, polygon);
+	}
+
+	@Override
+	public long estimateBytes() {
+		return 32 + 96L * polygon.getSize();
+	}
+
+	public Polygon getRemoved() {
+		return polygon;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+}
@@ -0,0 +1,42 @@
+package com.kubazuch.history;
+
+import com.kubazuch.scene.Scene;
+
+// Moves a polygon in z-order: it is taken out at index from and ends up at index to
+public class ReorderCommand implements Command {
+	private final Scene scene;
+	private final int from, to;
+
+	public ReorderCommand(Scene scene, int from, int to) {
+		this.scene = scene;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	public void redo() {
+		move(from, to);
+	}
+
+	@Override
+	public void undo() {
+		move(to, from);
+	}
+
+	private void move(int from, int to) {
+		scene.getPolygons().move(from, to);
+	}
+
+	@Override
+	public long estimateBytes() {
+		return 24;
+	}
+
+	public int getFrom() {
+		return from;
+	}
+
+	public int getTo() {
+		return to;
+	}
+}
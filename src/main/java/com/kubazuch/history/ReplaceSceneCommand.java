@@ -0,0 +1,73 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Circle;
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.scene.Scene;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Swaps the whole scene content at once, e.g. for a generated scene
+public class ReplaceSceneCommand implements Command {
+	private final Scene scene;
+	private final List<Polygon> polygons;
+	private final List<Circle> circles;
+	private final List<Polygon> oldPolygons;
+	private final List<Circle> oldCircles;
+	private final long bytes;
+
+	public ReplaceSceneCommand(Scene scene, List<Polygon> polygons, List<Circle> circles) {
+		this.scene = scene;
+		this.polygons = new ArrayList<>(polygons);
+		this.circles = new ArrayList<>(circles);
+		this.oldPolygons = new ArrayList<>(scene.getPolygons().getSize());
+		for (Polygon polygon : scene.getPolygons()) {
+			oldPolygons.add(polygon);
+		}
+		this.oldCircles = new ArrayList<>(scene.getCircles());
+
+		long bytes = 64 + 48L * (circles.size() + oldCircles.size());
+		for (Polygon polygon : this.polygons) {
+			bytes += 8 + 96L * polygon.getSize();
+		}
+		for (Polygon polygon : oldPolygons) {
+			bytes += 8 + 96L * polygon.getSize();
+		}
+		this.bytes = bytes;
+	}
+
+	@Override
+	public void redo() {
+		scene.getPolygons().replaceAll(polygons);
+		scene.getCircles().clear();
+		scene.getCircles().addAll(circles);
+	}
+
+	@Override
+	public void undo() {
+		scene.getPolygons().replaceAll(oldPolygons);
+		scene.getCircles().clear();
+		scene.getCircles().addAll(oldCircles);
+	}
+
+	@Override
+	public long estimateBytes() {
+		return bytes;
+	}
+
+	public List<Polygon> getPolygons() {
+		return polygons;
+	}
+
+	public List<Circle> getCircles() {
+		return circles;
+	}
+
+	public List<Polygon> getOldPolygons() {
+		return oldPolygons;
+	}
+
+	public List<Circle> getOldCircles() {
+		return oldCircles;
+	}
+}
@@ -0,0 +1,78 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.geometry.RingSnapshot;
+
+// A batch edit that rebuilds a polygon's whole ring in one pass. It runs for real only the first time; undo and redo
+// relink the rings captured around that run, so commands performed afterwards keep pointing at the same edges.
+public class RingEditCommand implements Command {
+	// The ordinal is written to the journal, so only ever append new kinds
+	public enum Kind {
+		SUBDIVIDE, THIN, SIMPLIFY
+	}
+
+	private final Polygon polygon;
+	private final Kind kind;
+	private final double parameter;
+	private final RingSnapshot before;
+	private RingSnapshot after;
+
+	public RingEditCommand(Polygon polygon, Kind kind, double parameter) {
+		this.polygon = polygon;
+		this.kind = kind;
+		this.parameter = parameter;
+		this.before = polygon.captureRing();
+	}
+
+	// Runs the edit on the polygon as it is now; used by the command itself and by the journal replay
+	public static void apply(Polygon polygon, Kind kind, double parameter) {
+		switch (kind) {
+			case SUBDIVIDE -> polygon.subdivide((int) parameter);
+			case THIN -> polygon.thin(parameter);
+			case SIMPLIFY -> polygon.simplify(parameter);
+		}
+	}
+
+	@Override
+	public void redo() {
+		if (after != null) {
+			after.restore();
+			return;
+		}
+
+		apply(polygon, kind, parameter);
+		after = polygon.captureRing();
+	}
+
+	@Override
+	public void undo() {
+		before.restore();
+	}
+
+	@Override
+	public long estimateBytes() {
+		return 64 + before.estimateBytes() + (after == null ? 0 : after.estimateBytes());
+	}
+
+	@Override
+	public Polygon getPolygon() {
+		return polygon;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public double getParameter() {
+		return parameter;
+	}
+
+	public RingSnapshot getBefore() {
+		return before;
+	}
+
+	// Vertices gained (positive) or lost (negative) by the edit; only known once it has run
+	public int getSizeChange() {
+		return after == null ? 0 : after.getSize() - before.getSize();
+	}
+}
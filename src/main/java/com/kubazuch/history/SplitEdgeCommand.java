@@ -0,0 +1,54 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Edge;
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.geometry.Vertex;
+
+public class SplitEdgeCommand implements Command {
+	private final Edge edge;
+	private final Edge.Constraint constraint;
+	private Vertex middle;
+
+	public SplitEdgeCommand(Edge edge) {
+		this.edge = edge;
+		this.constraint = edge.getConstraint();
+	}
+
+	@Override
+	public void redo() {
+		if (middle == null) {
+			middle = (Vertex) edge.divide();
+		} else {
+			edge.setConstraint(Edge.Constraint.NONE);
+			middle.reinsert();
+		}
+	}
+
+	@Override
+	public void undo() {
+		middle.delete();
+		edge.setConstraint(constraint);
+	}
+
+	@Override
+	public long estimateBytes() {
+		return 32;
+	}
+
+	@Override
+	public Polygon getPolygon() {
+		return edge.getPolygon();
+	}
+
+	public Edge getEdge() {
+		return edge;
+	}
+
+	public Edge.Constraint getOldConstraint() {
+		return constraint;
+	}
+
+	public Vertex getMiddle() {
+		return middle;
+	}
+}
@@ -0,0 +1,73 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.geometry.RingSnapshot;
+
+import java.awt.geom.AffineTransform;
+
+// Rotating or scaling a polygon as a whole. The steps of one gesture only compose onto the polygon's pending
+// transform and merge into the first one; the closing step bakes the result into the vertices and re-validates the
+// constraints. Undo puts back the ring captured when the gesture started.
+public class TransformCommand implements Command {
+	private final Polygon polygon;
+	private final RingSnapshot before;
+	private final AffineTransform transform;
+	private boolean baked;
+
+	public TransformCommand(Polygon polygon, RingSnapshot before, AffineTransform step) {
+		this.polygon = polygon;
+		this.before = before;
+		this.transform = new AffineTransform(step);
+	}
+
+	// Ends the gesture that started from before
+	public static TransformCommand bake(Polygon polygon, RingSnapshot before) {
+		TransformCommand command = new TransformCommand(polygon, before, new AffineTransform());
+		command.baked = true;
+		return command;
+	}
+
+	@Override
+	public void redo() {
+		polygon.transform(transform);
+		if (baked)
+			polygon.revalidateConstraints();
+	}
+
+	@Override
+	public void undo() {
+		before.restore();
+	}
+
+	@Override
+	public long estimateBytes() {
+		return 64 + before.estimateBytes();
+	}
+
+	@Override
+	public Polygon getPolygon() {
+		return polygon;
+	}
+
+	@Override
+	public boolean merge(Command next) {
+		if (baked || !(next instanceof TransformCommand step) || step.polygon != polygon || step.before != before)
+			return false;
+
+		transform.preConcatenate(step.transform);
+		baked = step.baked;
+		return true;
+	}
+
+	public AffineTransform getTransform() {
+		return new AffineTransform(transform);
+	}
+
+	public boolean isBaked() {
+		return baked;
+	}
+
+	public RingSnapshot getBefore() {
+		return before;
+	}
+}
@@ -0,0 +1,200 @@
+package com.kubazuch.journal;
+
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.history.Command;
+import com.kubazuch.history.HistoryListener;
+import com.kubazuch.scene.Scene;
+import com.kubazuch.scene.SnapshotPublisher;
+
+import javax.swing.*;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Crash-safe autosave: the scene is kept on disk as the last snapshot plus an append-only journal of the edits
+// made since. The editor only encodes records; writing and syncing happen on the writer thread.
+public class Journal implements HistoryListener {
+	private static final long COMPACTION_THRESHOLD = 16L << 20;
+
+	private final JournalWriter writer;
+	private final JournalEncoder encoder;
+	private final boolean restored;
+
+	// Records of the command being applied; they only reach the writer once it has applied without throwing, so a
+	// rejected edit (e.g. a conflicting constraint) is never replayed
+	private final List<byte[]> pending = new ArrayList<>();
+	private boolean pendingSnapshot;
+
+	private SnapshotPublisher snapshots;
+	private long sinceSnapshot;
+	private boolean disabled;
+
+	private Journal(Path dir, Scene scene, long generation, boolean restored) {
+		this.restored = restored;
+		this.writer = new JournalWriter(dir.resolve("scene.journal"), dir.resolve("scene.snapshot"), generation);
+		this.encoder = new JournalEncoder(scene, pending::add, () -> pendingSnapshot = true);
+	}
+
+	// Restores the scene saved in the directory, if there is one, and prepares a journal continuing from it
+	public static Journal open(Path dir, Scene scene, Consumer<Polygon> deletionHandler) throws IOException {
+		Files.createDirectories(dir);
+
+		Path snapshotPath = dir.resolve("scene.snapshot");
+		Path journalPath = dir.resolve("scene.journal");
+
+		long generation = 0;
+		boolean restored = false;
+
+		if (Files.exists(snapshotPath)) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+				generation = readSnapshot(in, scene, deletionHandler);
+				restored = true;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		if (restored && Files.exists(journalPath)) {
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalPath)))) {
+				replay(in, Files.size(journalPath), generation, new JournalReplayer(scene, deletionHandler));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		return new Journal(dir, scene, generation, restored);
+	}
+
+	public boolean restoredScene() {
+		return restored;
+	}
+
+	// Writes the current scene as the base of a fresh journal and starts the writer thread. Compaction later takes
+	// its snapshots from the same publisher, so the EDT never has to encode the scene itself.
+	public void start(SnapshotPublisher snapshots) {
+		this.snapshots = snapshots;
+		writer.snapshot(snapshots.publish());
+		writer.start();
+	}
+
+	public void close() {
+		writer.close();
+	}
+
+	@Override
+	public void beforeApply(Command command, boolean undo) {
+		if (disabled)
+			return;
+
+		// Whatever a command that threw left behind is dropped here
+		pending.clear();
+		pendingSnapshot = false;
+		try {
+			encoder.beforeApply(command, undo);
+		} catch (RuntimeException e) {
+			// Autosave must never get in the way of editing
+			disabled = true;
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public void afterApply(Command command, boolean undo) {
+		if (disabled)
+			return;
+
+		for (byte[] record : pending) {
+			append(record);
+		}
+		pending.clear();
+
+		// A whole new scene would be a record as large as a snapshot, so it starts a new generation instead
+		if (pendingSnapshot) {
+			pendingSnapshot = false;
+			compact();
+		}
+	}
+
+	private void append(byte[] record) {
+		writer.append(record);
+
+		sinceSnapshot += record.length;
+		if (sinceSnapshot >= COMPACTION_THRESHOLD) {
+			// The snapshot has to be taken after the command is applied, i.e. once the EDT is done with it
+			sinceSnapshot = Long.MIN_VALUE;
+			SwingUtilities.invokeLater(this::compact);
+		}
+	}
+
+	private void compact() {
+		sinceSnapshot = 0;
+		writer.snapshot(snapshots.publish());
+	}
+
+	private static long readSnapshot(DataInputStream in, Scene scene, Consumer<Polygon> deletionHandler) throws IOException {
+		if (in.readInt() != JournalWriter.SNAPSHOT_MAGIC || in.readInt() != JournalWriter.VERSION)
+			throw new IOException("Not a scene snapshot");
+
+		long generation = in.readLong();
+		int length = in.readInt();
+		if (length < 0)
+			throw new IOException("Scene snapshot is corrupted");
+
+		byte[] data = new byte[length];
+		in.readFully(data);
+
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		if ((int) crc.getValue() != in.readInt())
+			throw new IOException("Scene snapshot is corrupted");
+
+		SceneCodec.readScene(new DataInputStream(new ByteArrayInputStream(data)), scene, deletionHandler);
+		return generation;
+	}
+
+	private static void replay(DataInputStream in, long fileSize, long generation, JournalReplayer replayer) throws IOException {
+		if (in.readInt() != JournalWriter.JOURNAL_MAGIC || in.readInt() != JournalWriter.VERSION)
+			throw new IOException("Not a scene journal");
+
+		// A journal of another generation predates the snapshot, which already contains its records
+		if (in.readLong() != generation)
+			return;
+
+		long position = 16;
+		CRC32 crc = new CRC32();
+		while (true) {
+			int length, checksum;
+			byte[] record;
+			try {
+				length = in.readInt();
+				checksum = in.readInt();
+				position += 8;
+				if (length <= 0 || length > fileSize - position)
+					return;
+				position += length;
+				record = new byte[length];
+				in.readFully(record);
+			} catch (EOFException e) {
+				// Torn write at the tail; everything before it is intact
+				return;
+			}
+
+			crc.reset();
+			crc.update(record);
+			if ((int) crc.getValue() != checksum)
+				return;
+
+			try {
+				replayer.apply(new DataInputStream(new ByteArrayInputStream(record)));
+			} catch (RuntimeException e) {
+				// A record the scene rejects ends the journal like a torn tail; the edits before it are kept
+				e.printStackTrace();
+				return;
+			}
+		}
+	}
+}
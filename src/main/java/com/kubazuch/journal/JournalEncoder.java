@@ -0,0 +1,261 @@
+package com.kubazuch.journal;
+
+import com.kubazuch.geometry.*;
+import com.kubazuch.history.*;
+import com.kubazuch.scene.Scene;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+// Turns history commands into journal records. Elements are addressed by their position (polygon index in the
+// list, edge index in the ring), resolved against the state right before the command is applied. Commands that
+// bring in a whole scene are not encoded here at all; they are reported to sceneReplaced, and the scene they leave
+// behind is saved as a fresh snapshot by the writer thread.
+class JournalEncoder implements HistoryListener {
+	private final Scene scene;
+	private final Consumer<byte[]> sink;
+	private final Runnable sceneReplaced;
+
+	private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	private final DataOutputStream out = new DataOutputStream(buffer);
+
+	// Consecutive drag steps hit the same element; remember where it was until the topology changes
+	private Object lastTarget;
+	private int lastPolygonIndex, lastElementIndex;
+
+	JournalEncoder(Scene scene, Consumer<byte[]> sink, Runnable sceneReplaced) {
+		this.scene = scene;
+		this.sink = sink;
+		this.sceneReplaced = sceneReplaced;
+	}
+
+	@Override
+	public void beforeApply(Command command, boolean undo) {
+		try {
+			encode(command, undo);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void encode(Command command, boolean undo) throws IOException {
+		int sign = undo ? -1 : 1;
+
+		if (command instanceof MoveCommand move) {
+			int dx = sign * move.getDx();
+			int dy = sign * move.getDy();
+
+			if (move.getTarget() instanceof Polygon polygon) {
+				begin(JournalOp.POLYGON_MOVE);
+				cache(polygon, polygon, null);
+				out.writeInt(lastPolygonIndex);
+			} else if (move.getTarget() instanceof Edge edge) {
+				begin(JournalOp.EDGE_MOVE);
+				cache(edge, edge.getPolygon(), edge);
+				out.writeInt(lastPolygonIndex);
+				out.writeInt(lastElementIndex);
+			} else if (move.getTarget() instanceof Vertex vertex) {
+				begin(JournalOp.VERTEX_MOVE);
+				cache(vertex, vertex.getPolygon(), vertex.getOutEdge());
+				out.writeInt(lastPolygonIndex);
+				out.writeInt(lastElementIndex);
+			} else if (move.getTarget() instanceof Circle circle) {
+				begin(JournalOp.CIRCLE_MOVE);
+				out.writeInt(scene.getCircles().indexOf(circle));
+			} else {
+				return;
+			}
+
+			out.writeInt(dx);
+			out.writeInt(dy);
+			end();
+			return;
+		}
+
+		// Everything below may reshape rings or the polygon list
+		lastTarget = null;
+
+		if (command instanceof SplitEdgeCommand split) {
+			if (!undo) {
+				begin(JournalOp.EDGE_SPLIT);
+				writeEdge(split.getEdge());
+			} else {
+				begin(JournalOp.EDGE_UNSPLIT);
+				writeEdge(split.getMiddle().getOutEdge());
+				SceneCodec.writeConstraint(out, split.getOldConstraint());
+			}
+		} else if (command instanceof DeleteVertexCommand delete) {
+			if (!undo) {
+				begin(JournalOp.VERTEX_DELETE);
+				writeEdge(delete.getVertex().getOutEdge());
+			} else {
+				begin(JournalOp.VERTEX_UNDELETE);
+				writeEdge(delete.getMergedEdge());
+				out.writeDouble(delete.getVertex().getX());
+				out.writeDouble(delete.getVertex().getY());
+				SceneCodec.writeConstraint(out, delete.getInConstraint());
+				SceneCodec.writeConstraint(out, delete.getOutConstraint());
+			}
+		} else if (command instanceof ConstraintCommand constraint) {
+			if (!undo) {
+				begin(JournalOp.EDGE_CONSTRAINT);
+				writeEdge(constraint.getEdge());
+				SceneCodec.writeConstraint(out, constraint.getConstraint());
+			} else {
+				begin(JournalOp.EDGE_RESTORE);
+				writeEdge(constraint.getEdge());
+				for (double coordinate : constraint.getOldEndpoints()) {
+					out.writeDouble(coordinate);
+				}
+				SceneCodec.writeConstraint(out, constraint.getOldConstraint());
+			}
+		} else if (command instanceof AddPolygonCommand add) {
+			if (!undo) {
+				begin(JournalOp.POLYGON_ADD);
+				out.writeInt(0);
+				SceneCodec.writePolygon(out, add.getAdded());
+			} else {
+				begin(JournalOp.POLYGON_REMOVE);
+				out.writeInt(polygonIndex(add.getAdded()));
+			}
+		} else if (command instanceof RemovePolygonCommand remove) {
+			if (!undo) {
+				begin(JournalOp.POLYGON_REMOVE);
+				out.writeInt(polygonIndex(remove.getRemoved()));
+			} else {
+				begin(JournalOp.POLYGON_ADD);
+				out.writeInt(remove.getIndex());
+				SceneCodec.writePolygon(out, remove.getRemoved());
+			}
+		} else if (command instanceof ClearCommand) {
+			if (!undo) {
+				begin(JournalOp.POLYGON_CLEAR);
+			} else {
+				sceneReplaced.run();
+				return;
+			}
+		} else if (command instanceof ReorderCommand reorder) {
+			begin(JournalOp.POLYGON_REORDER);
+			out.writeInt(undo ? reorder.getTo() : reorder.getFrom());
+			out.writeInt(undo ? reorder.getFrom() : reorder.getTo());
+		} else if (command instanceof ColorCommand color) {
+			begin(JournalOp.POLYGON_COLOR);
+			out.writeInt(polygonIndex(color.getTarget()));
+			out.writeInt((undo ? color.getOldColor() : color.getColor()).getRGB());
+		} else if (command instanceof AddCircleCommand add) {
+			if (!undo) {
+				begin(JournalOp.CIRCLE_ADD);
+				SceneCodec.writeCircle(out, add.getAdded());
+			} else {
+				begin(JournalOp.CIRCLE_REMOVE);
+				out.writeInt(scene.getCircles().indexOf(add.getAdded()));
+			}
+		} else if (command instanceof RadiusCommand radius) {
+			begin(JournalOp.CIRCLE_RADIUS);
+			out.writeInt(scene.getCircles().indexOf(radius.getTarget()));
+			out.writeInt(undo ? radius.getOldRadius() : radius.getRadius());
+		} else if (command instanceof ReplaceSceneCommand) {
+			sceneReplaced.run();
+			return;
+		} else if (command instanceof TransformCommand transform) {
+			int index = polygonIndex(transform.getPolygon());
+			if (undo) {
+				begin(JournalOp.POLYGON_RING);
+				out.writeInt(index);
+				SceneCodec.writeRing(out, transform.getBefore());
+				end();
+				return;
+			}
+
+			if (!transform.getTransform().isIdentity()) {
+				double[] matrix = new double[6];
+				transform.getTransform().getMatrix(matrix);
+
+				begin(JournalOp.POLYGON_TRANSFORM);
+				out.writeInt(index);
+				for (double entry : matrix) {
+					out.writeDouble(entry);
+				}
+				end();
+			}
+
+			if (transform.isBaked()) {
+				begin(JournalOp.POLYGON_BAKE);
+				out.writeInt(index);
+				end();
+			}
+			return;
+		} else if (command instanceof RingEditCommand edit) {
+			if (!undo) {
+				begin(JournalOp.POLYGON_EDIT);
+				out.writeInt(polygonIndex(edit.getPolygon()));
+				out.writeByte(edit.getKind().ordinal());
+				out.writeDouble(edit.getParameter());
+			} else {
+				begin(JournalOp.POLYGON_RING);
+				out.writeInt(polygonIndex(edit.getPolygon()));
+				SceneCodec.writeRing(out, edit.getBefore());
+			}
+		} else if (command instanceof Checkpoint checkpoint) {
+			if (!undo)
+				return;
+
+			for (RingSnapshot ring : checkpoint.getRings()) {
+				int index = polygonIndex(ring.getPolygon());
+				if (index < 0)
+					continue;
+
+				// Encode the ring as it will look once restored
+				begin(JournalOp.POLYGON_RING);
+				out.writeInt(index);
+				SceneCodec.writeRing(out, ring);
+				end();
+			}
+			return;
+		} else {
+			return;
+		}
+
+		end();
+	}
+
+	private void begin(JournalOp op) throws IOException {
+		buffer.reset();
+		out.writeByte(op.ordinal());
+	}
+
+	private void end() {
+		sink.accept(buffer.toByteArray());
+	}
+
+	private int polygonIndex(Polygon polygon) {
+		return scene.getPolygons().indexOf(polygon);
+	}
+
+	private void writeEdge(Edge edge) throws IOException {
+		out.writeInt(polygonIndex(edge.getPolygon()));
+		out.writeInt(edgeIndex(edge));
+	}
+
+	private void cache(Object target, Polygon polygon, Edge edge) {
+		if (target == lastTarget)
+			return;
+
+		lastTarget = target;
+		lastPolygonIndex = polygonIndex(polygon);
+		lastElementIndex = edge == null ? -1 : edgeIndex(edge);
+	}
+
+	private static int edgeIndex(Edge edge) {
+		int i = 0;
+		for (Edge e : edge.getPolygon().getEdges()) {
+			if (e == edge)
+				return i;
+			i++;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,38 @@
+package com.kubazuch.journal;
+
+import java.io.IOException;
+
+// Record types of the autosave journal. The ordinal is the on-disk code, so only ever append new entries.
+enum JournalOp {
+	POLYGON_ADD,        // index, polygon
+	POLYGON_REMOVE,     // index
+	POLYGON_CLEAR,
+	POLYGON_MOVE,       // index, dx, dy
+	POLYGON_COLOR,      // index, rgb
+	POLYGON_RING,       // index, ring
+	EDGE_MOVE,          // polygon, edge, dx, dy
+	EDGE_SPLIT,         // polygon, edge
+	EDGE_UNSPLIT,       // polygon, vertex, constraint of the merged edge
+	EDGE_CONSTRAINT,    // polygon, edge, constraint
+	EDGE_RESTORE,       // polygon, edge, fromX, fromY, toX, toY, constraint
+	VERTEX_MOVE,        // polygon, vertex, dx, dy
+	VERTEX_DELETE,      // polygon, vertex
+	VERTEX_UNDELETE,    // polygon, edge, x, y, in constraint, out constraint
+	CIRCLE_ADD,         // x, y, radius
+	CIRCLE_REMOVE,      // index
+	CIRCLE_MOVE,        // index, dx, dy
+	CIRCLE_RADIUS,      // index, radius
+	POLYGON_REORDER,    // from, to
+	SCENE_REPLACE,      // scene
+	POLYGON_TRANSFORM,  // index, m00, m10, m01, m11, m02, m12
+	POLYGON_BAKE,       // index
+	POLYGON_EDIT;       // index, kind, parameter
+
+	private static final JournalOp[] VALUES = values();
+
+	static JournalOp of(int code) throws IOException {
+		if (code < 0 || code >= VALUES.length)
+			throw new IOException("Unknown journal record " + code);
+		return VALUES[code];
+	}
+}
@@ -0,0 +1,128 @@
+package com.kubazuch.journal;
+
+import com.kubazuch.geometry.*;
+import com.kubazuch.history.RingEditCommand;
+import com.kubazuch.scene.Scene;
+
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+// Applies journal records to a scene, mirroring exactly what the editor did when they were written
+class JournalReplayer {
+	private final Scene scene;
+	private final Consumer<Polygon> deletionHandler;
+
+	JournalReplayer(Scene scene, Consumer<Polygon> deletionHandler) {
+		this.scene = scene;
+		this.deletionHandler = deletionHandler;
+	}
+
+	void apply(DataInput in) throws IOException {
+		JournalOp op = JournalOp.of(in.readUnsignedByte());
+
+		switch (op) {
+			case POLYGON_ADD -> {
+				int index = in.readInt();
+				scene.getPolygons().add(index, SceneCodec.readPolygon(in, deletionHandler));
+			}
+			case POLYGON_REMOVE -> scene.getPolygons().remove(in.readInt());
+			case POLYGON_CLEAR -> scene.getPolygons().clear();
+			case POLYGON_MOVE -> polygon(in.readInt()).move(in.readInt(), in.readInt());
+			case POLYGON_COLOR -> polygon(in.readInt()).setColor(new Color(in.readInt(), true));
+			case POLYGON_RING -> {
+				int index = in.readInt();
+				Polygon old = polygon(index);
+				Polygon ring = SceneCodec.readRing(in, old.getColor(), deletionHandler);
+				scene.getPolygons().remove(index);
+				scene.getPolygons().add(index, ring);
+			}
+			case POLYGON_REORDER -> {
+				int from = in.readInt();
+				int to = in.readInt();
+				polygon(from);
+				polygon(to);
+				scene.getPolygons().move(from, to);
+			}
+			case EDGE_MOVE -> edge(in).move(in.readInt(), in.readInt());
+			case EDGE_SPLIT -> edge(in).divide();
+			case EDGE_UNSPLIT -> {
+				Vertex middle = edge(in).getDrawableFrom();
+				Edge merged = middle.getInEdge();
+				Edge.Constraint constraint = SceneCodec.readConstraint(in);
+				middle.delete();
+				merged.setConstraint(constraint);
+			}
+			case EDGE_CONSTRAINT -> {
+				Edge edge = edge(in);
+				edge.setConstraint(SceneCodec.readConstraint(in));
+			}
+			case EDGE_RESTORE -> {
+				Edge edge = edge(in);
+				edge.getDrawableFrom().getPoint2D().setLocation(in.readDouble(), in.readDouble());
+				edge.getDrawableTo().getPoint2D().setLocation(in.readDouble(), in.readDouble());
+				edge.setConstraint(SceneCodec.readConstraint(in));
+				edge.getPolygon().updateClockwiseness();
+			}
+			case VERTEX_MOVE -> edge(in).getDrawableFrom().move(in.readInt(), in.readInt());
+			case VERTEX_DELETE -> edge(in).getDrawableFrom().delete();
+			case VERTEX_UNDELETE -> {
+				Edge edge = edge(in);
+				Vertex vertex = (Vertex) edge.divide();
+				vertex.getPoint2D().setLocation(in.readDouble(), in.readDouble());
+				edge.setConstraint(SceneCodec.readConstraint(in));
+				vertex.getOutEdge().setConstraint(SceneCodec.readConstraint(in));
+				edge.getPolygon().updateClockwiseness();
+			}
+			case CIRCLE_ADD -> scene.getCircles().add(SceneCodec.readCircle(in));
+			case CIRCLE_REMOVE -> scene.getCircles().remove(in.readInt());
+			case CIRCLE_MOVE -> circle(in.readInt()).move(in.readInt(), in.readInt());
+			case CIRCLE_RADIUS -> circle(in.readInt()).setRadius(in.readInt());
+			case SCENE_REPLACE -> SceneCodec.readScene(in, scene, deletionHandler);
+			case POLYGON_TRANSFORM -> {
+				Polygon polygon = polygon(in.readInt());
+				double[] matrix = new double[6];
+				for (int i = 0; i < matrix.length; i++) {
+					matrix[i] = in.readDouble();
+				}
+				polygon.transform(new AffineTransform(matrix));
+			}
+			case POLYGON_BAKE -> polygon(in.readInt()).revalidateConstraints();
+			case POLYGON_EDIT -> {
+				Polygon polygon = polygon(in.readInt());
+				int kind = in.readUnsignedByte();
+				if (kind >= RingEditCommand.Kind.values().length)
+					throw new IOException("Unknown polygon edit " + kind);
+				RingEditCommand.apply(polygon, RingEditCommand.Kind.values()[kind], in.readDouble());
+			}
+		}
+	}
+
+	private Polygon polygon(int index) throws IOException {
+		if (index < 0 || index >= scene.getPolygons().getSize())
+			throw new IOException("Polygon index " + index + " out of range");
+		return scene.getPolygons().getElementAt(index);
+	}
+
+	private Circle circle(int index) throws IOException {
+		if (index < 0 || index >= scene.getCircles().size())
+			throw new IOException("Circle index " + index + " out of range");
+		return scene.getCircles().get(index);
+	}
+
+	private Edge edge(DataInput in) throws IOException {
+		Polygon polygon = polygon(in.readInt());
+		int index = in.readInt();
+		if (index < 0 || index >= polygon.getSize())
+			throw new IOException("Edge index " + index + " out of range");
+
+		Iterator<Edge> edges = polygon.getEdges().iterator();
+		for (int i = 0; i < index; i++) {
+			edges.next();
+		}
+		return edges.next();
+	}
+}
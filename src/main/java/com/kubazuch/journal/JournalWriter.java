@@ -0,0 +1,221 @@
+package com.kubazuch.journal;
+
+import com.kubazuch.scene.SceneSnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+// Background thread owning the journal files. Records queued in the meantime are written together and made
+// durable with a single fsync (group commit); snapshots replace the journal with a new generation.
+class JournalWriter implements Runnable {
+	static final int JOURNAL_MAGIC = 0x474B4A4C; // GKJL
+	static final int SNAPSHOT_MAGIC = 0x474B534E; // GKSN
+	static final int VERSION = 1;
+
+	private static final long COMMIT_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+	private static final int MAX_BATCH = 4096;
+
+	// Encoded here rather than on the EDT; the snapshot is immutable, so the editor may carry on meanwhile
+	private record SnapshotRequest(SceneSnapshot scene) {
+	}
+
+	private static final Object STOP = new Object();
+
+	private final Path journalPath;
+	private final Path snapshotPath;
+	private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+	private final Thread thread;
+
+	private FileChannel journal;
+	private long generation;
+	private volatile boolean failed;
+
+	JournalWriter(Path journalPath, Path snapshotPath, long generation) {
+		this.journalPath = journalPath;
+		this.snapshotPath = snapshotPath;
+		this.generation = generation;
+
+		this.thread = new Thread(this, "journal-writer");
+		this.thread.setDaemon(true);
+	}
+
+	void start() {
+		thread.start();
+	}
+
+	void append(byte[] record) {
+		if (!failed)
+			queue.add(record);
+	}
+
+	void snapshot(SceneSnapshot scene) {
+		if (!failed)
+			queue.add(new SnapshotRequest(scene));
+	}
+
+	void close() {
+		queue.add(STOP);
+		try {
+			thread.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public void run() {
+		List<Object> batch = new ArrayList<>();
+
+		try {
+			while (true) {
+				batch.add(queue.take());
+				// Give the editor a moment to queue up more work, then commit everything at once
+				LockSupport.parkNanos(COMMIT_DELAY_NANOS);
+				queue.drainTo(batch, MAX_BATCH);
+
+				boolean stop = commit(batch);
+				batch.clear();
+
+				if (stop)
+					break;
+			}
+		} catch (IOException e) {
+			failed = true;
+			queue.clear();
+			e.printStackTrace();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			closeJournal();
+		}
+	}
+
+	private boolean commit(List<Object> batch) throws IOException {
+		boolean dirty = false;
+
+		for (Object item : batch) {
+			if (item == STOP) {
+				if (dirty)
+					journal.force(false);
+				return true;
+			}
+
+			if (item instanceof SnapshotRequest request) {
+				if (dirty)
+					journal.force(false);
+				dirty = false;
+				writeSnapshot(encode(request.scene()));
+			} else {
+				writeRecord((byte[]) item);
+				dirty = true;
+			}
+		}
+
+		if (dirty)
+			journal.force(false);
+		return false;
+	}
+
+	private void writeRecord(byte[] record) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(record);
+
+		ByteBuffer buffer = ByteBuffer.allocate(8 + record.length);
+		buffer.putInt(record.length);
+		buffer.putInt((int) crc.getValue());
+		buffer.put(record);
+		buffer.flip();
+		writeFully(journal, buffer);
+	}
+
+	private static byte[] encode(SceneSnapshot scene) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		SceneCodec.writeScene(new DataOutputStream(buffer), scene);
+		return buffer.toByteArray();
+	}
+
+	// The snapshot becomes visible atomically and only then is the journal restarted under the new generation.
+	// A crash in between leaves a journal with the old generation, which restore ignores.
+	private void writeSnapshot(byte[] scene) throws IOException {
+		generation++;
+
+		CRC32 crc = new CRC32();
+		crc.update(scene);
+
+		ByteBuffer buffer = ByteBuffer.allocate(24 + scene.length);
+		buffer.putInt(SNAPSHOT_MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putLong(generation);
+		buffer.putInt(scene.length);
+		buffer.put(scene);
+		buffer.putInt((int) crc.getValue());
+		buffer.flip();
+
+		Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeFully(channel, buffer);
+			channel.force(true);
+		}
+		Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		syncDirectory(snapshotPath.toAbsolutePath().getParent());
+
+		closeJournal();
+		journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		ByteBuffer header = ByteBuffer.allocate(16);
+		header.putInt(JOURNAL_MAGIC);
+		header.putInt(VERSION);
+		header.putLong(generation);
+		header.flip();
+		writeFully(journal, header);
+		journal.force(true);
+	}
+
+	// The rename lives in the directory, so the directory is synced before the old journal is truncated; otherwise a
+	// crash could bring back the previous snapshot next to a journal already of the new generation, which restore would
+	// ignore. Where a directory cannot be opened as a channel (Windows), there is nothing to sync and it is skipped.
+	private static void syncDirectory(Path dir) throws IOException {
+		FileChannel channel;
+		try {
+			channel = FileChannel.open(dir, StandardOpenOption.READ);
+		} catch (IOException e) {
+			return;
+		}
+
+		try (channel) {
+			channel.force(true);
+		}
+	}
+
+	private void closeJournal() {
+		if (journal == null)
+			return;
+
+		try {
+			journal.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		journal = null;
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
@@ -0,0 +1,139 @@
+package com.kubazuch.journal;
+
+import com.kubazuch.geometry.Circle;
+import com.kubazuch.geometry.Edge;
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.geometry.PolygonSnapshot;
+import com.kubazuch.geometry.RingSnapshot;
+import com.kubazuch.scene.Scene;
+import com.kubazuch.scene.SceneSnapshot;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+class SceneCodec {
+	private static final Edge.Constraint[] CONSTRAINTS = Edge.Constraint.values();
+
+	private SceneCodec() {
+	}
+
+	static void writeScene(DataOutput out, Scene scene) throws IOException {
+		out.writeInt(scene.getPolygons().getSize());
+		for (Polygon polygon : scene.getPolygons()) {
+			writePolygon(out, polygon);
+		}
+
+		out.writeInt(scene.getCircles().size());
+		for (Circle circle : scene.getCircles()) {
+			writeCircle(out, circle);
+		}
+	}
+
+	// Same format, from an immutable snapshot; safe off the EDT
+	static void writeScene(DataOutput out, SceneSnapshot scene) throws IOException {
+		out.writeInt(scene.getPolygons().size());
+		for (PolygonSnapshot polygon : scene.getPolygons()) {
+			out.writeInt(polygon.getColor().getRGB());
+			out.writeInt(polygon.getSize());
+			for (int i = 0; i < polygon.getSize(); i++) {
+				out.writeDouble(polygon.getX(i));
+				out.writeDouble(polygon.getY(i));
+				writeConstraint(out, polygon.getConstraint(i));
+			}
+		}
+
+		out.writeInt(scene.getCircles().size());
+		for (SceneSnapshot.CircleSnapshot circle : scene.getCircles()) {
+			out.writeInt(circle.x());
+			out.writeInt(circle.y());
+			out.writeInt(circle.radius());
+		}
+	}
+
+	static void readScene(DataInput in, Scene scene, Consumer<Polygon> deletionHandler) throws IOException {
+		int polygons = in.readInt();
+		List<Polygon> loaded = new ArrayList<>(polygons);
+		for (int i = 0; i < polygons; i++) {
+			loaded.add(readPolygon(in, deletionHandler));
+		}
+
+		int circles = in.readInt();
+		List<Circle> loadedCircles = new ArrayList<>(circles);
+		for (int i = 0; i < circles; i++) {
+			loadedCircles.add(readCircle(in));
+		}
+
+		scene.getPolygons().replaceAll(loaded);
+		scene.getCircles().clear();
+		scene.getCircles().addAll(loadedCircles);
+	}
+
+	static void writePolygon(DataOutput out, Polygon polygon) throws IOException {
+		out.writeInt(polygon.getColor().getRGB());
+		writeRing(out, polygon);
+	}
+
+	static Polygon readPolygon(DataInput in, Consumer<Polygon> deletionHandler) throws IOException {
+		Color color = new Color(in.readInt(), true);
+		return readRing(in, color, deletionHandler);
+	}
+
+	static void writeRing(DataOutput out, Polygon polygon) throws IOException {
+		out.writeInt(polygon.getSize());
+		for (Edge edge : polygon.getEdges()) {
+			out.writeDouble(edge.getDrawableFrom().getX());
+			out.writeDouble(edge.getDrawableFrom().getY());
+			writeConstraint(out, edge.getConstraint());
+		}
+	}
+
+	static void writeRing(DataOutput out, RingSnapshot ring) throws IOException {
+		out.writeInt(ring.getSize());
+		for (int i = 0; i < ring.getSize(); i++) {
+			out.writeDouble(ring.getX(i));
+			out.writeDouble(ring.getY(i));
+			writeConstraint(out, ring.getConstraint(i));
+		}
+	}
+
+	static Polygon readRing(DataInput in, Color color, Consumer<Polygon> deletionHandler) throws IOException {
+		int size = in.readInt();
+		if (size < 3)
+			throw new IOException("Corrupted polygon of size " + size);
+
+		List<Point2D> points = new ArrayList<>(size);
+		Edge.Constraint[] constraints = new Edge.Constraint[size];
+		for (int i = 0; i < size; i++) {
+			points.add(new Point2D.Double(in.readDouble(), in.readDouble()));
+			constraints[i] = readConstraint(in);
+		}
+
+		return new Polygon(points, constraints, color, deletionHandler);
+	}
+
+	static void writeCircle(DataOutput out, Circle circle) throws IOException {
+		out.writeInt(circle.getCenter().x);
+		out.writeInt(circle.getCenter().y);
+		out.writeInt(circle.getRadius());
+	}
+
+	static Circle readCircle(DataInput in) throws IOException {
+		return new Circle(new Point(in.readInt(), in.readInt()), in.readInt());
+	}
+
+	static void writeConstraint(DataOutput out, Edge.Constraint constraint) throws IOException {
+		out.writeByte(constraint.ordinal());
+	}
+
+	static Edge.Constraint readConstraint(DataInput in) throws IOException {
+		int code = in.readByte();
+		if (code < 0 || code >= CONSTRAINTS.length)
+			throw new IOException("Unknown constraint " + code);
+		return CONSTRAINTS[code];
+	}
+}
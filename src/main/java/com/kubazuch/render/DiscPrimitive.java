@@ -0,0 +1,27 @@
+package com.kubazuch.render;
+
+import java.awt.*;
+
+// Filled disc covering the pixels whose centers lie within the radius, like fillOval without antialiasing
+public record DiscPrimitive(int cx, int cy, int radius, int rgb) implements Primitive {
+    @Override
+    public Rectangle getBounds() {
+        return new Rectangle(cx - radius, cy - radius, 2 * radius, 2 * radius);
+    }
+
+    @Override
+    public void rasterize(IntRaster raster, int x0, int y0, int x1, int y1) {
+        double r2 = (double) radius * radius;
+        int top = Math.max(cy - radius, y0), bottom = Math.min(cy + radius, y1);
+        int left = Math.max(cx - radius, x0), right = Math.min(cx + radius, x1);
+
+        for (int y = top; y < bottom; y++) {
+            double ey = y + 0.5 - cy;
+            for (int x = left; x < right; x++) {
+                double ex = x + 0.5 - cx;
+                if (ex * ex + ey * ey <= r2)
+                    raster.set(x, y, rgb);
+            }
+        }
+    }
+}
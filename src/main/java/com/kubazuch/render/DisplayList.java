@@ -0,0 +1,67 @@
+package com.kubazuch.render;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// A frame's worth of primitives in painting order, collected on the EDT and rasterized off it. Overlays are
+// painted with Java2D on top of the presented raster.
+public class DisplayList {
+    private final List<Primitive> primitives = new ArrayList<>();
+    private final List<Consumer<Graphics2D>> overlays = new ArrayList<>();
+    private boolean antialiased;
+
+    // Lines added from now on are drawn with Wu's algorithm instead of the aliased midpoint one
+    public void setAntialiased(boolean antialiased) {
+        this.antialiased = antialiased;
+    }
+
+    public void add(Primitive primitive) {
+        primitives.add(primitive);
+    }
+
+    public void line(int x1, int y1, int x2, int y2, Color color) {
+        add(new LinePrimitive(x1, y1, x2, y2, color.getRGB(), 1, 0, antialiased));
+    }
+
+    public void line(int x1, int y1, int x2, int y2, Color color, int thickness) {
+        add(new LinePrimitive(x1, y1, x2, y2, color.getRGB(), thickness, 0, antialiased));
+    }
+
+    public void dashedLine(int x1, int y1, int x2, int y2, Color color, int dash) {
+        add(new LinePrimitive(x1, y1, x2, y2, color.getRGB(), 1, dash, antialiased));
+    }
+
+    public void disc(int x, int y, int radius, Color color) {
+        add(new DiscPrimitive(x, y, radius, color.getRGB()));
+    }
+
+    public void wuCircle(int x, int y, int radius) {
+        add(new WuCirclePrimitive(x, y, radius));
+    }
+
+    // Even-odd fill of the given contours, each a flat array of x, y pairs
+    public void fill(List<double[]> contours, Color color, float alpha) {
+        add(new ScanlineFill(contours, color.getRGB(), alpha));
+    }
+
+    public void overlay(Consumer<Graphics2D> painter) {
+        overlays.add(painter);
+    }
+
+    public List<Primitive> getPrimitives() {
+        return primitives;
+    }
+
+    public void paintOverlays(Graphics2D g) {
+        for (Consumer<Graphics2D> overlay : overlays) {
+            overlay.accept(g);
+        }
+    }
+
+    public void clear() {
+        primitives.clear();
+        overlays.clear();
+    }
+}
@@ -0,0 +1,74 @@
+package com.kubazuch.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+// A framebuffer of packed RGB ints. The image shares the array, so presenting a finished frame is one drawImage.
+public class IntRaster {
+    private final int width;
+    private final int height;
+    private final int[] pixels;
+    private final BufferedImage image;
+
+    public IntRaster(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.image = new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_RGB);
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    // Callers clip; nothing here is bounds checked
+    public void set(int x, int y, int rgb) {
+        pixels[y * width + x] = rgb;
+    }
+
+    // Source-over of rgb with the given coverage
+    public void blend(int x, int y, int rgb, float alpha) {
+        int index = y * width + x;
+        int dst = pixels[index];
+        int a = (int) (alpha * 256);
+        int inv = 256 - a;
+
+        int r = (((rgb >> 16) & 0xFF) * a + ((dst >> 16) & 0xFF) * inv) >> 8;
+        int g = (((rgb >> 8) & 0xFF) * a + ((dst >> 8) & 0xFF) * inv) >> 8;
+        int b = ((rgb & 0xFF) * a + (dst & 0xFF) * inv) >> 8;
+        pixels[index] = (r << 16) | (g << 8) | b;
+    }
+
+    // Blends rgb over the pixels from x0 up to x1 on row y
+    public void blendSpan(int x0, int x1, int y, int rgb, float alpha) {
+        if (alpha >= 1f) {
+            int row = y * width;
+            Arrays.fill(pixels, row + x0, row + x1, rgb);
+            return;
+        }
+
+        for (int x = x0; x < x1; x++) {
+            blend(x, y, rgb, alpha);
+        }
+    }
+
+    public void fill(int x0, int y0, int x1, int y1, int rgb) {
+        for (int y = y0; y < y1; y++) {
+            int row = y * width;
+            Arrays.fill(pixels, row + x0, row + x1, rgb);
+        }
+    }
+}
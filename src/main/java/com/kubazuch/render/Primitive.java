@@ -0,0 +1,16 @@
+package com.kubazuch.render;
+
+import java.awt.*;
+
+// Something the tiled rasterizer can draw. Rasterizing is restricted to a clip rectangle (x0, y0 inclusive,
+// x1, y1 exclusive), so tiles can be drawn independently and in parallel.
+public interface Primitive {
+    Rectangle getBounds();
+
+    // Finer test than the bounds; lets long diagonal lines skip most of the tiles their bounding box covers
+    default boolean touches(int x0, int y0, int x1, int y1) {
+        return true;
+    }
+
+    void rasterize(IntRaster raster, int x0, int y0, int x1, int y1);
+}
@@ -0,0 +1,120 @@
+package com.kubazuch.render;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.List;
+
+// Even-odd fill of one or more closed contours, sampled at pixel centers. Edges are kept in an edge table sorted
+// by their top scanline; walking down, edges enter the active edge table when the scanline reaches them and leave
+// past their bottom, and the sorted crossings of the active edges pair up into spans.
+public class ScanlineFill implements Primitive {
+    private final int rgb;
+    private final float alpha;
+    private final Rectangle bounds;
+
+    // Edge table, sorted by yTop; x is where the edge crosses yTop, advancing by slope per unit of y
+    private final double[] yTop, yBottom, xTop, slope;
+
+    public ScanlineFill(List<double[]> contours, int rgb, float alpha) {
+        this.rgb = rgb;
+        this.alpha = alpha;
+
+        int count = 0;
+        for (double[] contour : contours) {
+            count += contour.length / 2;
+        }
+
+        double[][] edges = new double[count][];
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        int n = 0;
+        for (double[] contour : contours) {
+            int points = contour.length / 2;
+            for (int i = 0; i < points; i++) {
+                double x1 = contour[2 * i], y1 = contour[2 * i + 1];
+                int j = (i + 1) % points;
+                double x2 = contour[2 * j], y2 = contour[2 * j + 1];
+
+                minX = Math.min(minX, x1);
+                maxX = Math.max(maxX, x1);
+                minY = Math.min(minY, y1);
+                maxY = Math.max(maxY, y1);
+
+                // Horizontal edges never cross a scanline
+                if (y1 == y2)
+                    continue;
+                if (y1 > y2)
+                    edges[n++] = new double[]{y2, y1, x2, (x1 - x2) / (y1 - y2)};
+                else
+                    edges[n++] = new double[]{y1, y2, x1, (x2 - x1) / (y2 - y1)};
+            }
+        }
+
+        edges = Arrays.copyOf(edges, n);
+        Arrays.sort(edges, (a, b) -> Double.compare(a[0], b[0]));
+
+        this.yTop = new double[n];
+        this.yBottom = new double[n];
+        this.xTop = new double[n];
+        this.slope = new double[n];
+        for (int i = 0; i < n; i++) {
+            yTop[i] = edges[i][0];
+            yBottom[i] = edges[i][1];
+            xTop[i] = edges[i][2];
+            slope[i] = edges[i][3];
+        }
+
+        this.bounds = n == 0 ? new Rectangle() : new Rectangle((int) Math.floor(minX), (int) Math.floor(minY),
+                (int) Math.ceil(maxX) - (int) Math.floor(minX) + 1, (int) Math.ceil(maxY) - (int) Math.floor(minY) + 1);
+    }
+
+    @Override
+    public Rectangle getBounds() {
+        return bounds;
+    }
+
+    @Override
+    public void rasterize(IntRaster raster, int x0, int y0, int x1, int y1) {
+        int n = yTop.length;
+        if (n == 0)
+            return;
+
+        int[] active = new int[n];
+        int activeCount = 0;
+        double[] crossings = new double[n];
+        int next = 0;
+
+        int first = Math.max(y0, (int) Math.floor(yTop[0]));
+        int last = Math.min(y1, (int) Math.ceil(bounds.y + bounds.height));
+        for (int y = first; y < last; y++) {
+            double sample = y + 0.5;
+
+            // Edges whose top is above this scanline's sample join the active edge table
+            while (next < n && yTop[next] <= sample) {
+                active[activeCount++] = next++;
+            }
+
+            // ...and those that ended above it leave
+            int kept = 0;
+            for (int i = 0; i < activeCount; i++) {
+                if (yBottom[active[i]] > sample)
+                    active[kept++] = active[i];
+            }
+            activeCount = kept;
+
+            for (int i = 0; i < activeCount; i++) {
+                int edge = active[i];
+                crossings[i] = xTop[edge] + (sample - yTop[edge]) * slope[edge];
+            }
+            Arrays.sort(crossings, 0, activeCount);
+
+            // Even-odd: every other pair of crossings bounds a span
+            for (int i = 0; i + 1 < activeCount; i += 2) {
+                int from = Math.max((int) Math.ceil(crossings[i] - 0.5), x0);
+                int to = Math.min((int) Math.ceil(crossings[i + 1] - 0.5), x1);
+                if (from < to)
+                    raster.blendSpan(from, to, y, rgb, alpha);
+            }
+        }
+    }
+}
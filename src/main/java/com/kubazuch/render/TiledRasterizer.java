@@ -0,0 +1,121 @@
+package com.kubazuch.render;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Software renderer splitting the frame into square tiles. Every primitive is binned into the tiles it touches,
+// then workers take tiles one by one and rasterize each tile's primitives in painting order, clipped to the tile.
+// Tiles never share pixels, so no two workers ever write to the same part of the framebuffer.
+public class TiledRasterizer {
+    public static final int DEFAULT_TILE_SIZE = 64;
+
+    private final int tileSize;
+    private final int workers;
+    private final ExecutorService pool;
+
+    public TiledRasterizer() {
+        this(DEFAULT_TILE_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    public TiledRasterizer(int tileSize, int workers) {
+        this.tileSize = tileSize;
+        this.workers = Math.max(workers, 1);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(this.workers, r -> {
+            Thread thread = new Thread(r, "rasterizer-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void render(DisplayList list, IntRaster raster, int background) {
+        int columns = (raster.getWidth() + tileSize - 1) / tileSize;
+        int rows = (raster.getHeight() + tileSize - 1) / tileSize;
+        if (columns == 0 || rows == 0)
+            return;
+
+        int[][] bins = bin(list.getPrimitives(), raster, columns, rows);
+        List<Primitive> primitives = list.getPrimitives();
+
+        AtomicInteger nextTile = new AtomicInteger();
+        Callable<Void> worker = () -> {
+            int tile;
+            while ((tile = nextTile.getAndIncrement()) < bins.length) {
+                int x0 = (tile % columns) * tileSize;
+                int y0 = (tile / columns) * tileSize;
+                int x1 = Math.min(x0 + tileSize, raster.getWidth());
+                int y1 = Math.min(y0 + tileSize, raster.getHeight());
+
+                raster.fill(x0, y0, x1, y1, background);
+                for (int index : bins[tile]) {
+                    primitives.get(index).rasterize(raster, x0, y0, x1, y1);
+                }
+            }
+            return null;
+        };
+
+        List<Callable<Void>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < Math.min(workers, bins.length); i++) {
+            tasks.add(worker);
+        }
+
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    // Indices of the primitives touching every tile, in painting order. Counted first, so every bin is allocated
+    // at its exact size.
+    private int[][] bin(List<Primitive> primitives, IntRaster raster, int columns, int rows) {
+        int[] counts = new int[columns * rows];
+        forEachTile(primitives, raster, columns, rows, (tile, index) -> counts[tile]++);
+
+        int[][] bins = new int[counts.length][];
+        for (int tile = 0; tile < counts.length; tile++) {
+            bins[tile] = new int[counts[tile]];
+            counts[tile] = 0;
+        }
+
+        forEachTile(primitives, raster, columns, rows, (tile, index) -> bins[tile][counts[tile]++] = index);
+        return bins;
+    }
+
+    private interface TileVisitor {
+        void visit(int tile, int primitive);
+    }
+
+    private void forEachTile(List<Primitive> primitives, IntRaster raster, int columns, int rows, TileVisitor visitor) {
+        for (int index = 0; index < primitives.size(); index++) {
+            Primitive primitive = primitives.get(index);
+            Rectangle bounds = primitive.getBounds();
+
+            int left = Math.max(bounds.x / tileSize, 0);
+            int top = Math.max(bounds.y / tileSize, 0);
+            int right = Math.min((bounds.x + bounds.width) / tileSize, columns - 1);
+            int bottom = Math.min((bounds.y + bounds.height) / tileSize, rows - 1);
+
+            for (int row = top; row <= bottom; row++) {
+                for (int column = left; column <= right; column++) {
+                    int x0 = column * tileSize, y0 = row * tileSize;
+                    int x1 = Math.min(x0 + tileSize, raster.getWidth()), y1 = Math.min(y0 + tileSize, raster.getHeight());
+                    if (primitive.touches(x0, y0, x1, y1))
+                        visitor.visit(row * columns + column, index);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.kubazuch.render;
+
+import java.awt.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Black antialiased circle outline, plotted the same way as DrawUtils.drawWuCirlce
+public record WuCirclePrimitive(int cx, int cy, int radius) implements Primitive {
+    @Override
+    public Rectangle getBounds() {
+        return new Rectangle(cx - radius - 2, cy - radius - 2, 2 * radius + 5, 2 * radius + 5);
+    }
+
+    @Override
+    public boolean touches(int x0, int y0, int x1, int y1) {
+        // Tiles entirely inside the circle do not meet its outline
+        double far = 0;
+        for (int x : new int[]{x0, x1}) {
+            for (int y : new int[]{y0, y1}) {
+                far = Math.max(far, Math.hypot(x - cx, y - cy));
+            }
+        }
+        return far >= radius - 2;
+    }
+
+    @Override
+    public void rasterize(IntRaster raster, int x0, int y0, int x1, int y1) {
+        Plots plots = plots(radius);
+        for (int i = 0; i < plots.x().length; i++) {
+            plot(raster, plots.x()[i], plots.y()[i], plots.intensity()[i], x0, y0, x1, y1);
+        }
+    }
+
+    /*
+     * The pixels plotted for one radius do not depend on where the circle is, so it is worked out once per radius
+     * and shared by every circle and tile that draws it
+     */
+    private static final int PLOT_CACHE_SIZE = 256;
+    private static final Map<Integer, Plots> plotCache = new ConcurrentHashMap<>();
+
+    private record Plots(int[] x, int[] y, float[] intensity) {
+    }
+
+    private static Plots plots(int radius) {
+        Plots plots = plotCache.get(radius);
+        if (plots != null)
+            return plots;
+
+        if (plotCache.size() >= PLOT_CACHE_SIZE)
+            plotCache.clear();
+
+        plots = computePlots(radius);
+        plotCache.put(radius, plots);
+        return plots;
+    }
+
+    private static Plots computePlots(int radius) {
+        int quarter = (int) Math.round(radius / Math.sqrt(2));
+        int count = 4 * Math.max(quarter + 1, 0);
+        int[] xs = new int[count], ys = new int[count];
+        float[] intensities = new float[count];
+        int i = 0;
+
+        double t = 0.0;
+        for (int x = 0, y = radius; x <= quarter; x++) {
+            double d = Math.sqrt(radius * radius - x * x);
+            double fraction = Math.ceil(d) - d;
+            if (fraction < t)
+                y--;
+
+            i = record(xs, ys, intensities, i, x, y, 1.f - (float) fraction);
+            i = record(xs, ys, intensities, i, x, y - 1, (float) fraction);
+            t = fraction;
+        }
+
+        for (int y = 0, x = radius + 1; y <= quarter; y++) {
+            double d = Math.sqrt(radius * radius - y * y);
+            double fraction = Math.ceil(d) - d;
+            if (fraction < t)
+                x--;
+
+            i = record(xs, ys, intensities, i, x, y, 1.f - (float) fraction);
+            i = record(xs, ys, intensities, i, x - 1, y, (float) fraction);
+            t = fraction;
+        }
+
+        return new Plots(xs, ys, intensities);
+    }
+
+    private static int record(int[] xs, int[] ys, float[] intensities, int i, int x, int y, float intensity) {
+        xs[i] = x;
+        ys[i] = y;
+        intensities[i] = intensity;
+        return i + 1;
+    }
+
+    private void plot(IntRaster raster, int x, int y, float intensity, int x0, int y0, int x1, int y1) {
+        put(raster, cx + x, cy + y, intensity, x0, y0, x1, y1);
+        put(raster, cx - x, cy + y, intensity, x0, y0, x1, y1);
+        put(raster, cx - x, cy - y, intensity, x0, y0, x1, y1);
+        put(raster, cx + x, cy - y, intensity, x0, y0, x1, y1);
+    }
+
+    private static void put(IntRaster raster, int x, int y, float intensity, int x0, int y0, int x1, int y1) {
+        if (x >= x0 && x < x1 && y >= y0 && y < y1)
+            raster.blend(x, y, 0, intensity);
+    }
+}
@@ -0,0 +1,78 @@
+package com.kubazuch.scene;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Immutable list kept in fixed-size chunks. A copy with a few elements replaced only copies the chunk index and the
+// chunks those elements are in, and shares every other chunk with the original.
+final class ChunkedList<E> extends AbstractList<E> implements RandomAccess {
+	private static final int SHIFT = 6;
+	private static final int CHUNK_SIZE = 1 << SHIFT;
+	private static final int MASK = CHUNK_SIZE - 1;
+
+	private final Object[][] chunks;
+	private final int size;
+
+	private ChunkedList(Object[][] chunks, int size) {
+		this.chunks = chunks;
+		this.size = size;
+	}
+
+	static <E> ChunkedList<E> of(List<? extends E> elements) {
+		int size = elements.size();
+		Object[][] chunks = new Object[(size + MASK) >>> SHIFT][];
+		for (int c = 0; c < chunks.length; c++) {
+			int from = c << SHIFT;
+			chunks[c] = elements.subList(from, Math.min(from + CHUNK_SIZE, size)).toArray();
+		}
+		return new ChunkedList<>(chunks, size);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+		return (E) chunks[index >>> SHIFT][index & MASK];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	Editor<E> edit() {
+		return new Editor<>(this);
+	}
+
+	// Collects replacements for a copy of the list; a chunk is copied the first time one of its elements is set
+	static final class Editor<E> {
+		private final Object[][] chunks;
+		private final boolean[] copied;
+		private final int size;
+
+		private Editor(ChunkedList<E> list) {
+			this.chunks = list.chunks.clone();
+			this.copied = new boolean[chunks.length];
+			this.size = list.size;
+		}
+
+		void set(int index, E element) {
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+
+			int c = index >>> SHIFT;
+			if (!copied[c]) {
+				chunks[c] = Arrays.copyOf(chunks[c], chunks[c].length);
+				copied[c] = true;
+			}
+			chunks[c][index & MASK] = element;
+		}
+
+		ChunkedList<E> build() {
+			return new ChunkedList<>(chunks, size);
+		}
+	}
+}
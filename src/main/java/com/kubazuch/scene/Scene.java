@@ -0,0 +1,26 @@
+package com.kubazuch.scene;
+
+import com.kubazuch.component.BetterListModel;
+import com.kubazuch.geometry.Circle;
+import com.kubazuch.geometry.Polygon;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Scene {
+	private final BetterListModel<Polygon> polygons;
+	private final List<Circle> circles;
+
+	public Scene() {
+		this.polygons = new BetterListModel<>();
+		this.circles = new ArrayList<>();
+	}
+
+	public BetterListModel<Polygon> getPolygons() {
+		return polygons;
+	}
+
+	public List<Circle> getCircles() {
+		return circles;
+	}
+}
@@ -0,0 +1,170 @@
+package com.kubazuch.scene;
+
+import com.kubazuch.geometry.Circle;
+import com.kubazuch.geometry.Edge;
+import com.kubazuch.geometry.Polygon;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+// Reproducible stress scenes: the same spec always yields the same polygons, constraints and circles
+public class SceneGenerator {
+	public enum Outline {
+		STAR("Star"),
+		// Alternating deep and shallow points; strongly concave
+		SPIKY("Spiky"),
+		// A disc with a slit cut almost all the way to its center, so its two sides nearly touch
+		NEAR_TOUCHING("Nearly self-touching"),
+		MIXED("Mixed");
+
+		private final String humanReadable;
+
+		Outline(String humanReadable) {
+			this.humanReadable = humanReadable;
+		}
+
+		@Override
+		public String toString() {
+			return humanReadable;
+		}
+	}
+
+	// constraintDensity is the share of edges that get a H/V constraint, as far as the neighbour rule allows
+	public record Spec(long seed, int polygons, int vertices, int circles, Outline outline, double constraintDensity, int width, int height) {
+		public Spec {
+			if (polygons < 0 || circles < 0 || vertices < 3)
+				throw new IllegalArgumentException("Need at least 3 vertices and a non-negative number of polygons and circles");
+		}
+	}
+
+	public record Generated(List<Polygon> polygons, List<Circle> circles) {
+	}
+
+	private static final Outline[] SHAPES = {Outline.STAR, Outline.SPIKY, Outline.NEAR_TOUCHING};
+	private static final double NEAR_TOUCHING_GAP = 2.0;
+
+	private final Spec spec;
+	private final Random random;
+	private final Consumer<Polygon> deletionHandler;
+
+	private SceneGenerator(Spec spec, Consumer<Polygon> deletionHandler) {
+		this.spec = spec;
+		this.random = new Random(spec.seed());
+		this.deletionHandler = deletionHandler;
+	}
+
+	public static Generated generate(Spec spec, Consumer<Polygon> deletionHandler) {
+		return new SceneGenerator(spec, deletionHandler).generate();
+	}
+
+	// Replaces whatever the scene held with a generated one
+	public static void populate(Scene scene, Spec spec, Consumer<Polygon> deletionHandler) {
+		Generated generated = generate(spec, deletionHandler);
+		scene.getPolygons().replaceAll(generated.polygons());
+		scene.getCircles().clear();
+		scene.getCircles().addAll(generated.circles());
+	}
+
+	private Generated generate() {
+		List<Polygon> polygons = new ArrayList<>(spec.polygons());
+		for (int i = 0; i < spec.polygons(); i++) {
+			Outline outline = spec.outline() == Outline.MIXED ? SHAPES[random.nextInt(SHAPES.length)] : spec.outline();
+			Polygon polygon = new Polygon(outline(outline), Color.getHSBColor(random.nextFloat(), 1.0f, 0.75f), deletionHandler);
+			constrain(polygon);
+			polygons.add(polygon);
+		}
+
+		List<Circle> circles = new ArrayList<>(spec.circles());
+		int maxRadius = Math.max(Math.min(spec.width(), spec.height()) / 4, 10);
+		for (int i = 0; i < spec.circles(); i++) {
+			circles.add(new Circle(new Point(random.nextInt(Math.max(spec.width(), 1)), random.nextInt(Math.max(spec.height(), 1))), 5 + random.nextInt(maxRadius)));
+		}
+
+		return new Generated(polygons, circles);
+	}
+
+	private List<Point> outline(Outline outline) {
+		int n = spec.vertices();
+
+		// Scaled down as the scene fills up, but never so small that neighbouring vertices would round together
+		double base = Math.min(spec.width(), spec.height()) / (2.0 + Math.sqrt(spec.polygons()));
+		double radius = Math.max(base * (0.5 + random.nextDouble()), n / Math.PI);
+		int cx = random.nextInt(Math.max(spec.width(), 1));
+		int cy = random.nextInt(Math.max(spec.height(), 1));
+		double phase = random.nextDouble() * 2 * Math.PI;
+
+		List<Point> points = new ArrayList<>(n);
+		switch (outline) {
+			case STAR -> {
+				for (int i = 0; i < n; i++) {
+					double r = radius * (0.6 + 0.4 * random.nextDouble());
+					add(points, cx, cy, r, phase + 2 * Math.PI * i / n);
+				}
+			}
+			case SPIKY -> {
+				for (int i = 0; i < n; i++) {
+					double r = i % 2 == 0 ? radius : radius * (0.15 + 0.25 * random.nextDouble());
+					add(points, cx, cy, r, phase + 2 * Math.PI * i / n);
+				}
+			}
+			default -> {
+				// The slit's sides are NEAR_TOUCHING_GAP apart at the rim and meet at the inner vertex
+				double slit = NEAR_TOUCHING_GAP / radius;
+				double inner = radius * (0.05 + 0.1 * random.nextDouble());
+				add(points, cx, cy, inner, phase);
+				for (int i = 0; i < n - 1; i++) {
+					double angle = phase + slit / 2 + (2 * Math.PI - slit) * i / (n - 2);
+					add(points, cx, cy, radius, angle);
+				}
+			}
+		}
+
+		// Rounding may have merged neighbours; a polygon must not have zero-length edges
+		if (points.size() > 1 && points.get(0).equals(points.get(points.size() - 1)))
+			points.remove(points.size() - 1);
+		while (points.size() < 3) {
+			points.add(new Point(cx + points.size(), cy + 2 * points.size() * points.size()));
+		}
+		return points;
+	}
+
+	private static void add(List<Point> points, int cx, int cy, double r, double angle) {
+		Point point = new Point(cx + (int) Math.round(r * Math.cos(angle)), cy + (int) Math.round(r * Math.sin(angle)));
+		if (points.isEmpty() || !points.get(points.size() - 1).equals(point))
+			points.add(point);
+	}
+
+	// Constrains edges to the axis they already lean towards, skipping any that would repeat a neighbour's
+	// constraint (which Edge.setConstraint rejects) or that are too short across to snap without collapsing
+	private void constrain(Polygon polygon) {
+		if (spec.constraintDensity() <= 0)
+			return;
+
+		List<Edge> edges = new ArrayList<>(polygon.getSize());
+		for (Edge edge : polygon.getEdges()) {
+			edges.add(edge);
+		}
+
+		int n = edges.size();
+		for (int i = 0; i < n; i++) {
+			if (random.nextDouble() >= spec.constraintDensity())
+				continue;
+
+			Edge edge = edges.get(i);
+			double dx = Math.abs(edge.getTo().getX() - edge.getFrom().getX());
+			double dy = Math.abs(edge.getTo().getY() - edge.getFrom().getY());
+			Edge.Constraint constraint = dy >= dx ? Edge.Constraint.VERTICAL : Edge.Constraint.HORIZONTAL;
+			if (Math.max(dx, dy) < 2)
+				continue;
+
+			if (edges.get((i + n - 1) % n).getConstraint() == constraint || edges.get((i + 1) % n).getConstraint() == constraint)
+				continue;
+
+			edge.setConstraint(constraint);
+		}
+	}
+}
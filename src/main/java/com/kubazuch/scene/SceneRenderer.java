@@ -0,0 +1,282 @@
+package com.kubazuch.scene;
+
+import com.kubazuch.DrawUtils;
+import com.kubazuch.component.BetterListModel;
+import com.kubazuch.geometry.Circle;
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.geometry.SelectionModel;
+import com.kubazuch.render.DisplayList;
+import com.kubazuch.render.IntRaster;
+import com.kubazuch.render.TiledRasterizer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.function.Consumer;
+
+// Draws a scene the way the canvas shows it, through Java2D or through the tiled rasterizer. The stages are
+// exposed separately so the canvas can slot its drawing previews in between circles and polygons.
+public class SceneRenderer {
+	public static final float FILL_ALPHA = 0.35f;
+
+	private final Scene scene;
+	private SelectionModel selection = new SelectionModel();
+
+	private int offset;
+	private boolean softwareRendering;
+	private boolean fillPolygons;
+	private boolean fillOffsets;
+
+	private TiledRasterizer rasterizer;
+	private IntRaster raster;
+	private final DisplayList displayList = new DisplayList();
+
+	// Progressive rendering: the background and circles, then the scene without the active polygon, drawn back to front
+	// over as many frames as it takes into the layers behind and in front of it
+	private BufferedImage accumulation, accumulationBehind, accumulationFront;
+	private boolean accumulationValid;
+	private int accumulated;
+	private Polygon accumulationActive;
+	private int accumulationActiveIndex = -1;
+
+	public SceneRenderer(Scene scene) {
+		this.scene = scene;
+	}
+
+	// Where the selected and highlighted elements come from; only polygons in the overlay may have any
+	public void setSelectionModel(SelectionModel selection) {
+		this.selection = selection;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public void setOffset(int offset) {
+		if (this.offset != offset)
+			invalidate();
+		this.offset = offset;
+	}
+
+	// The scene changed in a way progressive rendering cannot see; start accumulating it again
+	public void invalidate() {
+		accumulationValid = false;
+	}
+
+	public void setSoftwareRendering(boolean softwareRendering) {
+		this.softwareRendering = softwareRendering;
+		updateRasterizer();
+	}
+
+	public void setFillMode(boolean polygons, boolean offsets) {
+		this.fillPolygons = polygons;
+		this.fillOffsets = offsets;
+		updateRasterizer();
+	}
+
+	// Fills and Wu lines only exist in software, so either one switches frames over to the tiled rasterizer
+	public boolean usesRasterizer() {
+		return softwareRendering || fillPolygons || fillOffsets || DrawUtils.lineAlgorithm == DrawUtils.LineAlgorithm.WU;
+	}
+
+	// Starts or stops the rasterizer's workers to match the current settings
+	public void updateRasterizer() {
+		if (usesRasterizer() && rasterizer == null) {
+			rasterizer = new TiledRasterizer();
+		} else if (!usesRasterizer() && rasterizer != null) {
+			rasterizer.shutdown();
+			rasterizer = null;
+			raster = null;
+		}
+	}
+
+	public void dispose() {
+		if (rasterizer != null)
+			rasterizer.shutdown();
+		rasterizer = null;
+		raster = null;
+	}
+
+	// Draws the whole scene on a white background
+	public void render(Graphics2D g, int width, int height) {
+		if (usesRasterizer()) {
+			DisplayList list = beginFrame();
+			addCircles(list);
+			addPolygons(list);
+			finishFrame(g, width, height);
+			return;
+		}
+
+		paintBackground(g, width, height);
+		paintCircles(g);
+		paintPolygons(g);
+	}
+
+	/*
+	 * Java2D
+	 */
+
+	public void paintBackground(Graphics2D g, int width, int height) {
+		g.setColor(Color.WHITE);
+		g.fillRect(0, 0, width, height);
+	}
+
+	// Circles are plotted pixel by pixel; leaves antialiasing off
+	public void paintCircles(Graphics2D g) {
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+		for (Circle c : scene.getCircles()) {
+			c.draw(g);
+		}
+	}
+
+	// Back to front, i.e. the first polygon of the list ends up on top
+	public void paintPolygons(Graphics2D g) {
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		for (ListIterator<Polygon> it = scene.getPolygons().listIterator(scene.getPolygons().getSize()); it.hasPrevious(); ) {
+			Polygon polygon = it.previous();
+
+			polygon.drawOffset(g, offset);
+			polygon.draw(g, selection);
+		}
+	}
+
+	/*
+	 * Progressive Java2D rendering
+	 */
+
+	// Continues drawing the scene into the accumulation layers, polygon by polygon in z-order, until the time budget is
+	// spent, and shows what is there so far. The active polygon (the one being edited) is left out of the layers and
+	// drawn between them every frame, so changing it never throws away the progress and it keeps its place in z-order
+	// (compositing the polygon layers may round antialiased pixels by a level or two).
+	// The layers are drawn without any selection; only the marked edges and vertices of the marked polygons are drawn
+	// on top, so hovering and selecting cost nothing either. underPolygons paints over the circles and under every
+	// polygon, where the other modes put the drawing previews. Returns whether the scene was complete.
+	public boolean paintProgressive(Graphics2D g, int width, int height, Polygon active, List<Polygon> marked, long budgetNanos, Consumer<Graphics2D> underPolygons) {
+		long deadline = System.nanoTime() + budgetNanos;
+
+		if (accumulation == null || accumulation.getWidth() != width || accumulation.getHeight() != height) {
+			accumulation = new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_RGB);
+			accumulationBehind = new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_ARGB);
+			accumulationFront = new BufferedImage(Math.max(width, 1), Math.max(height, 1), BufferedImage.TYPE_INT_ARGB);
+			accumulationValid = false;
+		}
+
+		BetterListModel<Polygon> polygons = scene.getPolygons();
+		int activeIndex = active == null ? -1 : polygons.indexOf(active);
+		if (activeIndex < 0)
+			active = null;
+		if (active != accumulationActive || activeIndex != accumulationActiveIndex) {
+			accumulationActive = active;
+			accumulationActiveIndex = activeIndex;
+			accumulationValid = false;
+		}
+		if (accumulated > polygons.getSize())
+			accumulationValid = false;
+
+		Graphics2D back = accumulationBehind.createGraphics();
+		Graphics2D front = accumulationFront.createGraphics();
+		if (!accumulationValid) {
+			Graphics2D ground = accumulation.createGraphics();
+			paintBackground(ground, width, height);
+			paintCircles(ground);
+			ground.dispose();
+
+			clear(back, width, height);
+			clear(front, width, height);
+			accumulated = 0;
+			accumulationValid = true;
+		}
+
+		back.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		front.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		boolean progressed = false;
+		for (ListIterator<Polygon> it = polygons.listIterator(polygons.getSize() - accumulated); it.hasPrevious(); ) {
+			// Always get at least one polygon further, however small the budget
+			if (progressed && System.nanoTime() >= deadline)
+				break;
+
+			int index = it.previousIndex();
+			Polygon polygon = it.previous();
+			accumulated++;
+			if (polygon == active)
+				continue;
+
+			// Without an active polygon everything lands behind it
+			Graphics2D layer = index > activeIndex ? back : front;
+			polygon.drawOffset(layer, offset);
+			polygon.draw(layer);
+			progressed = true;
+		}
+		back.dispose();
+		front.dispose();
+
+		g.drawImage(accumulation, 0, 0, null);
+		underPolygons.accept(g);
+		g.drawImage(accumulationBehind, 0, 0, null);
+
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		if (active != null) {
+			active.drawOffset(g, offset);
+			active.draw(g);
+			g.drawImage(accumulationFront, 0, 0, null);
+		}
+
+		for (int i = marked.size() - 1; i >= 0; i--) {
+			marked.get(i).drawMarked(g, selection);
+		}
+
+		return accumulated >= polygons.getSize();
+	}
+
+	private static void clear(Graphics2D layer, int width, int height) {
+		layer.setComposite(AlphaComposite.Clear);
+		layer.fillRect(0, 0, width, height);
+		layer.setComposite(AlphaComposite.SrcOver);
+	}
+
+	/*
+	 * Tiled rasterizer
+	 */
+
+	public DisplayList beginFrame() {
+		updateRasterizer();
+		displayList.clear();
+		displayList.setAntialiased(DrawUtils.lineAlgorithm == DrawUtils.LineAlgorithm.WU);
+		return displayList;
+	}
+
+	public void addCircles(DisplayList list) {
+		for (Circle c : scene.getCircles()) {
+			c.draw(list);
+		}
+	}
+
+	public void addPolygons(DisplayList list) {
+		for (ListIterator<Polygon> it = scene.getPolygons().listIterator(scene.getPolygons().getSize()); it.hasPrevious(); ) {
+			Polygon polygon = it.previous();
+
+			if (fillOffsets)
+				polygon.fillOffset(list, offset, FILL_ALPHA);
+			if (fillPolygons)
+				polygon.fill(list, FILL_ALPHA);
+
+			polygon.drawOffset(list, offset);
+			polygon.draw(list, selection);
+		}
+	}
+
+	// Rasterizes the display list, presents it and paints the Java2D overlays on top
+	public void finishFrame(Graphics2D g, int width, int height) {
+		if (width <= 0 || height <= 0)
+			return;
+		if (raster == null || raster.getWidth() != width || raster.getHeight() != height)
+			raster = new IntRaster(width, height);
+
+		rasterizer.render(displayList, raster, Color.WHITE.getRGB());
+		g.drawImage(raster.getImage(), 0, 0, null);
+
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		displayList.paintOverlays(g);
+	}
+}
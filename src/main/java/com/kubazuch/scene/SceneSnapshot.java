@@ -0,0 +1,38 @@
+package com.kubazuch.scene;
+
+import com.kubazuch.geometry.PolygonSnapshot;
+
+import java.util.List;
+
+// Immutable state of a scene at one point of the editing, for readers on other threads. Consecutive snapshots share
+// the PolygonSnapshot of every polygon that did not change between them.
+public final class SceneSnapshot {
+	public static final SceneSnapshot EMPTY = new SceneSnapshot(List.of(), List.of(), 0);
+
+	public record CircleSnapshot(int x, int y, int radius) {
+	}
+
+	private final List<PolygonSnapshot> polygons;
+	private final List<CircleSnapshot> circles;
+	private final long version;
+
+	SceneSnapshot(List<PolygonSnapshot> polygons, List<CircleSnapshot> circles, long version) {
+		this.polygons = polygons;
+		this.circles = circles;
+		this.version = version;
+	}
+
+	// Front first, in the order of the scene's polygon list
+	public List<PolygonSnapshot> getPolygons() {
+		return polygons;
+	}
+
+	public List<CircleSnapshot> getCircles() {
+		return circles;
+	}
+
+	// Grows by one with every published snapshot
+	public long getVersion() {
+		return version;
+	}
+}
@@ -0,0 +1,150 @@
+package com.kubazuch.scene;
+
+import com.kubazuch.geometry.Circle;
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.geometry.PolygonSnapshot;
+import com.kubazuch.geometry.RingSnapshot;
+import com.kubazuch.history.*;
+
+import javax.swing.*;
+import java.util.*;
+
+// Keeps an immutable SceneSnapshot of the scene up to date for readers off the EDT. Edits only mark what they are
+// about to touch. Publishing converts those polygons and shares all others with the previous snapshot; the polygon
+// list is only walked again after polygons were added, removed or reordered, otherwise a publish costs the size of
+// the edit. A polygon dragged as a whole even keeps its vertices, so each step of the drag is O(1).
+// Readers never lock: they just take the latest snapshot.
+public class SnapshotPublisher implements HistoryListener {
+	private final Scene scene;
+	private volatile SceneSnapshot latest = SceneSnapshot.EMPTY;
+
+	// Touched on the EDT only. positions maps every polygon of the latest snapshot to its index there.
+	private Map<Polygon, Integer> positions = Map.of();
+	private ChunkedList<PolygonSnapshot> polygons = ChunkedList.of(List.of());
+	private final Set<Polygon> dirty = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Set<Polygon> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+	private boolean changed = true, circlesChanged = true, listChanged = true, invalid = true;
+	private boolean scheduled;
+
+	public SnapshotPublisher(Scene scene) {
+		this.scene = scene;
+	}
+
+	// The most recently published snapshot; safe to call from any thread
+	public SceneSnapshot latest() {
+		return latest;
+	}
+
+	// The scene was changed without going through the history, e.g. loaded from disk
+	public void invalidate() {
+		invalid = listChanged = changed = circlesChanged = true;
+		schedule();
+	}
+
+	@Override
+	public void beforeApply(Command command, boolean undo) {
+		if (command instanceof AddPolygonCommand || command instanceof RemovePolygonCommand || command instanceof ClearCommand
+				|| command instanceof ReorderCommand) {
+			listChanged = true;
+		} else if (command instanceof ReplaceSceneCommand) {
+			listChanged = circlesChanged = true;
+		} else if (command instanceof Checkpoint checkpoint) {
+			for (RingSnapshot ring : checkpoint.getRings()) {
+				dirty.add(ring.getPolygon());
+			}
+		} else if (command instanceof MoveCommand move && move.getTarget() instanceof Polygon polygon) {
+			moved.add(polygon);
+		} else if (command instanceof TransformCommand transform && !undo && !transform.isBaked()) {
+			// Only the pending transform changes; baking or undoing rewrites the vertices
+			moved.add(transform.getPolygon());
+		} else if (command instanceof ColorCommand color) {
+			dirty.add(color.getTarget());
+		} else if (command.getPolygon() != null) {
+			dirty.add(command.getPolygon());
+		} else if (command instanceof AddCircleCommand || command instanceof RadiusCommand
+				|| command instanceof MoveCommand move && move.getTarget() instanceof Circle) {
+			circlesChanged = true;
+		}
+
+		changed = true;
+		schedule();
+	}
+
+	// The command is applied right after the listeners ran, so the snapshot goes out once the EDT is done with it
+	private void schedule() {
+		if (scheduled)
+			return;
+
+		scheduled = true;
+		SwingUtilities.invokeLater(this::publish);
+	}
+
+	// Brings the snapshot up to date with the scene and returns it; call on the EDT
+	public SceneSnapshot publish() {
+		scheduled = false;
+		if (!changed)
+			return latest;
+
+		if (listChanged)
+			rebuild();
+		else
+			update();
+
+		List<SceneSnapshot.CircleSnapshot> circles = latest.getCircles();
+		if (circlesChanged) {
+			List<SceneSnapshot.CircleSnapshot> copied = new ArrayList<>(scene.getCircles().size());
+			for (Circle circle : scene.getCircles()) {
+				copied.add(new SceneSnapshot.CircleSnapshot(circle.getCenter().x, circle.getCenter().y, circle.getRadius()));
+			}
+			circles = Collections.unmodifiableList(copied);
+		}
+
+		dirty.clear();
+		moved.clear();
+		changed = circlesChanged = listChanged = invalid = false;
+
+		latest = new SceneSnapshot(polygons, circles, latest.getVersion() + 1);
+		return latest;
+	}
+
+	// The list changed: walk it and index it anew, reusing the snapshot of every polygon that is still there
+	private void rebuild() {
+		Map<Polygon, Integer> previous = invalid ? Map.of() : positions;
+
+		Map<Polygon, Integer> next = new IdentityHashMap<>(scene.getPolygons().getSize());
+		List<PolygonSnapshot> snapshots = new ArrayList<>(scene.getPolygons().getSize());
+		for (Polygon polygon : scene.getPolygons()) {
+			Integer index = previous.get(polygon);
+			next.put(polygon, snapshots.size());
+			snapshots.add(index == null ? polygon.snapshot() : convert(polygon, polygons.get(index)));
+		}
+
+		positions = next;
+		polygons = ChunkedList.of(snapshots);
+	}
+
+	// Only the listed polygons changed, each in its place
+	private void update() {
+		if (dirty.isEmpty() && moved.isEmpty())
+			return;
+
+		ChunkedList.Editor<PolygonSnapshot> editor = polygons.edit();
+		for (Set<Polygon> changedPolygons : List.of(dirty, moved)) {
+			for (Polygon polygon : changedPolygons) {
+				// Checkpoints may name polygons that are gone by now
+				Integer index = positions.get(polygon);
+				if (index != null)
+					editor.set(index, convert(polygon, polygons.get(index)));
+			}
+		}
+		polygons = editor.build();
+	}
+
+	private PolygonSnapshot convert(Polygon polygon, PolygonSnapshot previous) {
+		if (dirty.contains(polygon))
+			return polygon.snapshot();
+		if (moved.contains(polygon))
+			return polygon.snapshotMoved(previous);
+		return previous;
+	}
+}
@@ -0,0 +1,47 @@
+package com.kubazuch.scene;
+
+import com.kubazuch.component.BetterListModel;
+import com.kubazuch.geometry.Edge;
+import com.kubazuch.geometry.Polygon;
+
+import java.awt.Color;
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.function.Consumer;
+
+public class StartupScene {
+	// The two polygons the editor opens with when there is no saved scene
+	public static void populate(Scene scene, Consumer<Polygon> deletionHandler) {
+		BetterListModel<Polygon> polygons = scene.getPolygons();
+
+		Polygon p1 = new Polygon(new LinkedList<>(Arrays.asList(new Point(90, 30), new Point(330, 30), new Point(325, 260), new Point(100, 260), new Point(50, 170), new Point(100, 170), new Point(110, 200), new Point(240, 200), new Point(242, 60), new Point(90, 65), new Point(85, 130), new Point(20, 130))), Color.GREEN, deletionHandler);
+		Edge.Constraint last = Edge.Constraint.HORIZONTAL;
+		for (Edge e : p1.getEdges()) {
+			e.setConstraint(last);
+			if (last == Edge.Constraint.VERTICAL) {
+				last = Edge.Constraint.HORIZONTAL;
+			} else {
+				last = Edge.Constraint.VERTICAL;
+			}
+		}
+		polygons.addFirst(p1);
+
+		Polygon p2 = new Polygon(new LinkedList<>(Arrays.asList(new Point(128, 320), new Point(128, 463), new Point(163, 460), new Point(166, 393), new Point(219, 460), new Point(219, 416), new Point(171, 370), new Point(240, 316), new Point(186, 313), new Point(163, 349), new Point(158, 308))), Color.CYAN, deletionHandler);
+		Iterator<Edge> iterator = p2.getEdges().iterator();
+		iterator.next().setConstraint(Edge.Constraint.VERTICAL);
+		iterator.next().setConstraint(Edge.Constraint.HORIZONTAL);
+		iterator.next().setConstraint(Edge.Constraint.VERTICAL);
+		iterator.next();
+		iterator.next().setConstraint(Edge.Constraint.VERTICAL);
+		iterator.next();
+		iterator.next();
+		iterator.next().setConstraint(Edge.Constraint.HORIZONTAL);
+		iterator.next();
+		iterator.next().setConstraint(Edge.Constraint.VERTICAL);
+		iterator.next().setConstraint(Edge.Constraint.HORIZONTAL);
+
+		polygons.addFirst(p2);
+	}
+}
@@ -0,0 +1,45 @@
+package com.kubazuch.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BetterListModelTest {
+    private static BetterListModel<String> model(String... elements) {
+        BetterListModel<String> model = new BetterListModel<>();
+        model.addAll(List.of(elements));
+        return model;
+    }
+
+    private static List<String> contents(BetterListModel<String> model) {
+        List<String> contents = new ArrayList<>();
+        model.forEach(contents::add);
+        return contents;
+    }
+
+    @Test
+    void reorderReversesList() {
+        BetterListModel<String> model = model("a", "b", "c");
+        model.reorder(new int[]{2, 1, 0});
+        assertEquals(List.of("c", "b", "a"), contents(model));
+    }
+
+    @Test
+    void reorderAppliesPermutation() {
+        BetterListModel<String> model = model("a", "b", "c", "d", "e");
+        model.reorder(new int[]{3, 0, 4, 1, 2});
+        assertEquals(List.of("d", "a", "e", "b", "c"), contents(model));
+        assertEquals(2, model.indexOf("e"));
+    }
+
+    @Test
+    void reorderRejectsNonPermutationAndKeepsList() {
+        BetterListModel<String> model = model("a", "b", "c");
+        assertThrows(IllegalArgumentException.class, () -> model.reorder(new int[]{0, 0, 1}));
+        assertThrows(IllegalArgumentException.class, () -> model.reorder(new int[]{0, 1}));
+        assertEquals(List.of("a", "b", "c"), contents(model));
+    }
+}
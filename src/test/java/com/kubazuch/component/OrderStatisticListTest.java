@@ -0,0 +1,109 @@
+package com.kubazuch.component;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStatisticListTest {
+    private static void assertSameList(List<String> expected, OrderStatisticList<String> actual, Random random) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected, new ArrayList<>(actual));
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i));
+        }
+
+        if (!expected.isEmpty()) {
+            String element = expected.get(random.nextInt(expected.size()));
+            assertEquals(expected.indexOf(element), actual.indexOf(element));
+        }
+        assertEquals(-1, actual.indexOf("absent"));
+
+        // Walk back from a random position and the end
+        int start = random.nextInt(expected.size() + 1);
+        for (int from : new int[]{start, expected.size()}) {
+            ListIterator<String> iterator = actual.listIterator(from);
+            for (int i = from - 1; i >= 0; i--) {
+                assertTrue(iterator.hasPrevious());
+                assertEquals(i, iterator.previousIndex());
+                assertEquals(expected.get(i), iterator.previous());
+            }
+            assertFalse(iterator.hasPrevious());
+        }
+    }
+
+    @Test
+    void matchesArrayListUnderRandomOperations() {
+        for (long seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            List<String> expected = new ArrayList<>();
+            OrderStatisticList<String> actual = new OrderStatisticList<>();
+            int next = 0;
+
+            for (int step = 0; step < 500; step++) {
+                int size = expected.size();
+                switch (random.nextInt(6)) {
+                    case 0 -> {
+                        int index = random.nextInt(size + 1);
+                        String element = "e" + next++;
+                        expected.add(index, element);
+                        actual.add(index, element);
+                    }
+                    case 1 -> {
+                        if (size == 0)
+                            continue;
+                        int index = random.nextInt(size);
+                        assertEquals(expected.remove(index), actual.remove(index));
+                    }
+                    case 2 -> {
+                        if (size == 0)
+                            continue;
+                        int from = random.nextInt(size);
+                        int to = random.nextInt(size);
+                        expected.add(to, expected.remove(from));
+                        actual.move(from, to);
+                    }
+                    case 3 -> {
+                        int index = random.nextInt(size + 1);
+                        List<String> batch = new ArrayList<>();
+                        for (int i = random.nextInt(8); i > 0; i--) {
+                            batch.add("e" + next++);
+                        }
+                        assertEquals(expected.addAll(index, batch), actual.addAll(index, batch));
+                    }
+                    case 4 -> {
+                        int modulus = 2 + random.nextInt(5);
+                        int remainder = random.nextInt(modulus);
+                        assertEquals(expected.removeIf(e -> e.hashCode() % modulus == remainder),
+                                actual.removeIf(e -> e.hashCode() % modulus == remainder));
+                    }
+                    default -> {
+                        if (size == 0)
+                            continue;
+                        int index = random.nextInt(size);
+                        String element = expected.get(index);
+                        assertEquals(index, actual.indexOf(element));
+                        assertTrue(actual.contains(element));
+                    }
+                }
+
+                assertSameList(expected, actual, random);
+            }
+        }
+    }
+
+    @Test
+    void rejectsDuplicates() {
+        OrderStatisticList<String> list = new OrderStatisticList<>();
+        String element = "a";
+        list.add(0, element);
+        assertThrows(IllegalArgumentException.class, () -> list.add(0, element));
+        assertThrows(IllegalArgumentException.class, () -> list.addAll(0, List.of("b", "b")));
+        assertEquals(List.of("a"), new ArrayList<>(list));
+    }
+}
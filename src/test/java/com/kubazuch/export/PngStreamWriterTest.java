@@ -0,0 +1,72 @@
+package com.kubazuch.export;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PngStreamWriterTest {
+    private static BufferedImage roundTrip(int[] pixels, int width, int height, int band) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PngStreamWriter png = new PngStreamWriter(out, width, height)) {
+            for (int row = 0; row < height; row += band) {
+                png.writeRows(pixels, row * width, width, Math.min(band, height - row));
+            }
+        }
+        return ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static void assertDecodesTo(int[] pixels, int width, int height, BufferedImage image) {
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(pixels[y * width + x] & 0xffffff, image.getRGB(x, y) & 0xffffff, "pixel " + x + ", " + y);
+            }
+        }
+    }
+
+    @Test
+    void noiseSurvivesEveryFilter() throws Exception {
+        // Noise, flat rows and gradients, so that different rows favour different filters
+        int width = 123, height = 77;
+        Random random = new Random(3);
+        int[] pixels = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[y * width + x] = switch (y % 4) {
+                    case 0 -> random.nextInt();
+                    case 1 -> 0x808080;
+                    case 2 -> (x * 2) << 16 | y << 8 | x;
+                    default -> pixels[(y - 1) * width + x] + 0x010101;
+                };
+            }
+        }
+
+        assertDecodesTo(pixels, width, height, roundTrip(pixels, width, height, 10));
+    }
+
+    @Test
+    void largeImageSpansSeveralChunks() throws Exception {
+        int width = 600, height = 400;
+        Random random = new Random(5);
+        int[] pixels = new int[width * height];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = random.nextInt();
+        }
+
+        assertDecodesTo(pixels, width, height, roundTrip(pixels, width, height, 256));
+    }
+
+    @Test
+    void missingRowsAreAnError() throws Exception {
+        PngStreamWriter png = new PngStreamWriter(new ByteArrayOutputStream(), 4, 4);
+        png.writeRows(new int[8], 0, 4, 2);
+        assertThrows(IllegalStateException.class, png::close);
+    }
+}
@@ -0,0 +1,63 @@
+package com.kubazuch.export;
+
+import com.kubazuch.scene.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SceneExporterTest {
+    // Not a multiple of the tile size either way, so the last column and band are partial
+    private static final int WIDTH = 700, HEIGHT = 530;
+
+    @TempDir
+    Path dir;
+
+    private static Scene scene() {
+        Scene scene = new Scene();
+        SceneGenerator.populate(scene, new SceneGenerator.Spec(7, 60, 16, 30, SceneGenerator.Outline.STAR, 0.3, WIDTH, HEIGHT), p -> {
+        });
+        return scene;
+    }
+
+    @Test
+    void exportMatchesOneShotRender() throws Exception {
+        for (int offset : new int[]{0, 10}) {
+            Scene scene = scene();
+            SceneRenderer renderer = new SceneRenderer(scene);
+            renderer.setOffset(offset);
+            BufferedImage expected = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = expected.createGraphics();
+            renderer.render(g, WIDTH, HEIGHT);
+            g.dispose();
+
+            Path file = dir.resolve("scene" + offset + ".png");
+            SceneSnapshot snapshot = new SnapshotPublisher(scene).publish();
+            assertTrue(SceneExporter.export(snapshot, new SceneExporter.Settings(WIDTH, HEIGHT, 1, offset), file, (done, total) -> true));
+
+            BufferedImage actual = ImageIO.read(file.toFile());
+            assertEquals(WIDTH, actual.getWidth());
+            assertEquals(HEIGHT, actual.getHeight());
+            for (int y = 0; y < HEIGHT; y++) {
+                for (int x = 0; x < WIDTH; x++) {
+                    assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "pixel " + x + ", " + y + " at offset " + offset);
+                }
+            }
+        }
+    }
+
+    @Test
+    void cancelledExportLeavesNoFile() throws Exception {
+        Path file = dir.resolve("cancelled.png");
+        SceneSnapshot snapshot = new SnapshotPublisher(scene()).publish();
+
+        assertFalse(SceneExporter.export(snapshot, new SceneExporter.Settings(WIDTH, HEIGHT, 1, 0), file, (done, total) -> done < 2));
+        assertFalse(Files.exists(file));
+    }
+}
@@ -0,0 +1,257 @@
+package com.kubazuch.geometry;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.kubazuch.geometry.Edge.Constraint.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolygonRingEditTest {
+    private static Polygon polygon(Edge.Constraint[] constraints, double... coordinates) {
+        List<Point2D> points = new ArrayList<>();
+        for (int i = 0; i < coordinates.length; i += 2) {
+            points.add(new Point2D.Double(coordinates[i], coordinates[i + 1]));
+        }
+        return new Polygon(points, constraints, Color.BLACK, p -> {
+        });
+    }
+
+    private static List<Point2D> points(Polygon polygon) {
+        List<Point2D> points = new ArrayList<>();
+        for (Edge edge : polygon.getEdges()) {
+            points.add(new Point2D.Double(edge.from.point2D.getX(), edge.from.point2D.getY()));
+        }
+        return points;
+    }
+
+    private static List<Edge.Constraint> constraints(Polygon polygon) {
+        List<Edge.Constraint> constraints = new ArrayList<>();
+        for (Edge edge : polygon.getEdges()) {
+            constraints.add(edge.getConstraint());
+        }
+        return constraints;
+    }
+
+    // Every constrained edge lies on its axis and no two neighbours share one; the ring is closed both ways
+    private static void assertValidRing(Polygon polygon) {
+        int count = 0;
+        for (Edge edge : polygon.getEdges()) {
+            assertSame(edge, edge.getNext().getPrev());
+            assertSame(edge.to, edge.getNext().from);
+
+            Point2D a = edge.from.point2D, b = edge.to.point2D;
+            switch (edge.getConstraint()) {
+                case HORIZONTAL -> assertEquals(a.getY(), b.getY(), "horizontal edge off its axis");
+                case VERTICAL -> assertEquals(a.getX(), b.getX(), "vertical edge off its axis");
+                case NONE -> {
+                }
+            }
+            if (edge.getConstraint() != NONE)
+                assertNotEquals(edge.getConstraint(), edge.getNext().getConstraint(), "neighbours share an axis");
+            count++;
+        }
+        assertEquals(polygon.getSize(), count);
+    }
+
+    // Offsets go outward only if the polygon knows its orientation
+    private static boolean offsetsOutward(Polygon polygon) {
+        Rectangle2D bounds = polygon.getBounds();
+        Rectangle2D offset = null;
+        for (List<Point2D> contour : polygon.getOffsetContours(5)) {
+            for (Point2D point : contour) {
+                if (offset == null)
+                    offset = new Rectangle2D.Double(point.getX(), point.getY(), 0, 0);
+                else
+                    offset.add(point);
+            }
+        }
+        return offset != null && offset.getWidth() > bounds.getWidth();
+    }
+
+    // Reverses the ring's orientation behind the polygon's back, so only an edit that refreshes it can notice
+    private static void mirror(Polygon polygon) {
+        for (Edge edge : polygon.getEdges()) {
+            edge.from.point2D.setLocation(-edge.from.point2D.getX(), edge.from.point2D.getY());
+        }
+        assertFalse(offsetsOutward(polygon));
+    }
+
+    private static Polygon square() {
+        return polygon(new Edge.Constraint[]{HORIZONTAL, VERTICAL, HORIZONTAL, VERTICAL}, 0, 0, 90, 0, 90, 90, 0, 90);
+    }
+
+    /*
+     * subdivide
+     */
+
+    @Test
+    void subdivideSplitsEveryEdgeEvenly() {
+        Polygon polygon = square();
+        polygon.subdivide(2);
+
+        List<Point2D> points = points(polygon);
+        assertEquals(12, points.size());
+        assertEquals(new Point2D.Double(0, 0), points.get(0));
+        assertEquals(new Point2D.Double(30, 0), points.get(1));
+        assertEquals(new Point2D.Double(60, 0), points.get(2));
+        assertEquals(new Point2D.Double(90, 0), points.get(3));
+        assertEquals(new Point2D.Double(90, 90), points.get(6));
+        assertEquals(new Point2D.Double(0, 90), points.get(9));
+        assertEquals(new Point2D.Double(0, 60), points.get(10));
+    }
+
+    @Test
+    void subdivideKeepsConstraintsOnAlternatePieces() {
+        Polygon polygon = square();
+        polygon.subdivide(2);
+
+        assertEquals(List.of(HORIZONTAL, NONE, HORIZONTAL, VERTICAL, NONE, VERTICAL,
+                HORIZONTAL, NONE, HORIZONTAL, VERTICAL, NONE, VERTICAL), constraints(polygon));
+        assertValidRing(polygon);
+
+        polygon.subdivide(1);
+        assertEquals(24, polygon.getSize());
+        assertValidRing(polygon);
+    }
+
+    @Test
+    void subdivideByZeroLeavesRing() {
+        Polygon polygon = square();
+        polygon.subdivide(0);
+        assertEquals(4, polygon.getSize());
+    }
+
+    @Test
+    void subdivideRefreshesOrientation() {
+        Polygon polygon = square();
+        mirror(polygon);
+        polygon.subdivide(1);
+        assertTrue(offsetsOutward(polygon));
+    }
+
+    /*
+     * thin
+     */
+
+    @Test
+    void thinDropsCloseVertices() {
+        Polygon polygon = polygon(null, 0, 0, 2, 0, 100, 0, 100, 100, 99, 101, 0, 100);
+        assertEquals(2, polygon.thin(5));
+
+        assertEquals(List.of(new Point2D.Double(0, 0), new Point2D.Double(100, 0),
+                new Point2D.Double(100, 100), new Point2D.Double(0, 100)), points(polygon));
+        assertValidRing(polygon);
+    }
+
+    @Test
+    void thinChecksLastVertexAgainstFirst() {
+        Polygon polygon = polygon(null, 0, 0, 100, 0, 100, 100, 0, 100, 0, 2);
+        assertEquals(1, polygon.thin(5));
+        assertEquals(4, polygon.getSize());
+        assertValidRing(polygon);
+    }
+
+    @Test
+    void thinKeepsConstraintOfMergedEdgeOnAxis() {
+        Polygon polygon = polygon(new Edge.Constraint[]{HORIZONTAL, NONE, VERTICAL, HORIZONTAL, VERTICAL},
+                0, 0, 2, 0, 100, 0, 100, 100, 0, 100);
+        assertEquals(1, polygon.thin(5));
+
+        assertEquals(List.of(new Point2D.Double(0, 0), new Point2D.Double(100, 0),
+                new Point2D.Double(100, 100), new Point2D.Double(0, 100)), points(polygon));
+        assertEquals(List.of(HORIZONTAL, VERTICAL, HORIZONTAL, VERTICAL), constraints(polygon));
+        assertValidRing(polygon);
+    }
+
+    @Test
+    void thinDropsConstraintOffAxis() {
+        // The horizontal run ends up merged with an edge climbing to (100, 50), off the axis
+        Polygon polygon = polygon(new Edge.Constraint[]{HORIZONTAL, NONE, NONE, NONE},
+                0, 0, 3, 0, 100, 50, 0, 100);
+        assertEquals(1, polygon.thin(5));
+
+        assertEquals(List.of(NONE, NONE, NONE), constraints(polygon));
+        assertValidRing(polygon);
+    }
+
+    @Test
+    void thinNeverGoesBelowTriangle() {
+        Polygon polygon = polygon(null, 0, 0, 1, 0, 2, 1, 1, 2, 0, 1);
+        assertEquals(2, polygon.thin(1000));
+        assertEquals(3, polygon.getSize());
+        assertValidRing(polygon);
+    }
+
+    @Test
+    void thinRefreshesOrientation() {
+        Polygon polygon = polygon(null, 0, 0, 2, 0, 100, 0, 100, 100, 0, 100);
+        mirror(polygon);
+        polygon.thin(5);
+        assertTrue(offsetsOutward(polygon));
+    }
+
+    /*
+     * simplify
+     */
+
+    @Test
+    void simplifyDropsFlatVertices() {
+        Polygon polygon = polygon(null, 0, 0, 50, 0.1, 100, 0, 100, 100, 0, 100, 0, 50);
+        assertEquals(2, polygon.simplify(10));
+
+        assertEquals(List.of(new Point2D.Double(0, 0), new Point2D.Double(100, 0),
+                new Point2D.Double(100, 100), new Point2D.Double(0, 100)), points(polygon));
+        assertValidRing(polygon);
+    }
+
+    @Test
+    void simplifyKeepsVerticesAboveThreshold() {
+        Polygon polygon = polygon(null, 0, 0, 50, 10, 100, 0, 100, 100, 0, 100);
+        assertEquals(0, polygon.simplify(100));
+        assertEquals(5, polygon.getSize());
+    }
+
+    @Test
+    void simplifyKeepsEndpointsOfConstrainedEdges() {
+        // (50, 0) spans a tiny triangle but ends a horizontal edge, (0, 50) spans none and ends nothing constrained
+        Polygon polygon = polygon(new Edge.Constraint[]{HORIZONTAL, NONE, NONE, NONE, NONE, NONE},
+                0, 0, 50, 0, 100, 1, 100, 100, 0, 100, 0, 50);
+        assertEquals(1, polygon.simplify(100));
+
+        assertEquals(List.of(new Point2D.Double(0, 0), new Point2D.Double(50, 0), new Point2D.Double(100, 1),
+                new Point2D.Double(100, 100), new Point2D.Double(0, 100)), points(polygon));
+        assertEquals(List.of(HORIZONTAL, NONE, NONE, NONE, NONE), constraints(polygon));
+        assertValidRing(polygon);
+    }
+
+    @Test
+    void simplifyKeepsConstrainedRing() {
+        Polygon polygon = square();
+        polygon.subdivide(2);
+        // Every vertex ends a constrained piece, so none may go
+        assertEquals(0, polygon.simplify(1e9));
+        assertEquals(12, polygon.getSize());
+        assertValidRing(polygon);
+    }
+
+    @Test
+    void simplifyNeverGoesBelowTriangle() {
+        Polygon polygon = polygon(null, 0, 0, 100, 0, 100, 100, 50, 120, 0, 100);
+        assertEquals(2, polygon.simplify(1e9));
+        assertEquals(3, polygon.getSize());
+        assertValidRing(polygon);
+    }
+
+    @Test
+    void simplifyRefreshesOrientation() {
+        Polygon polygon = polygon(null, 0, 0, 50, 0, 100, 0, 100, 100, 0, 100);
+        mirror(polygon);
+        polygon.simplify(1);
+        assertTrue(offsetsOutward(polygon));
+    }
+}
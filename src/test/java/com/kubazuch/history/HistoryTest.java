@@ -0,0 +1,155 @@
+package com.kubazuch.history;
+
+import com.kubazuch.geometry.Polygon;
+import com.kubazuch.geometry.PolygonSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryTest {
+    private static Polygon square() {
+        return new Polygon(List.of(new Point2D.Double(0, 0), new Point2D.Double(10, 0),
+                new Point2D.Double(10, 10), new Point2D.Double(0, 10)), Color.BLACK, p -> {
+        });
+    }
+
+    private static void assertAt(Polygon polygon, double x, double y) {
+        PolygonSnapshot snapshot = polygon.snapshot();
+        assertEquals(x, snapshot.getX(0), 1e-9);
+        assertEquals(y, snapshot.getY(0), 1e-9);
+    }
+
+    private static void gesture(History history, Command... commands) {
+        history.seal();
+        for (Command command : commands) {
+            history.perform(command);
+        }
+    }
+
+    @Test
+    void undoAndRedoStepThroughGestures() {
+        History history = new History(Long.MAX_VALUE, Integer.MAX_VALUE);
+        Polygon polygon = square();
+
+        gesture(history, new MoveCommand(polygon, 1, 2));
+        gesture(history, new MoveCommand(polygon, 3, 4));
+        assertAt(polygon, 4, 6);
+
+        history.undo();
+        assertAt(polygon, 1, 2);
+        history.undo();
+        assertAt(polygon, 0, 0);
+        assertFalse(history.canUndo());
+
+        history.redo();
+        history.redo();
+        assertAt(polygon, 4, 6);
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    void commandsWithinGestureMerge() {
+        History history = new History(Long.MAX_VALUE, Integer.MAX_VALUE);
+        Polygon polygon = square();
+
+        gesture(history, new MoveCommand(polygon, 1, 0), new MoveCommand(polygon, 1, 0), new MoveCommand(polygon, 1, 0));
+        assertEquals(24, history.getUsedBytes());
+
+        history.undo();
+        assertAt(polygon, 0, 0);
+        assertFalse(history.canUndo());
+    }
+
+    @Test
+    void performClearsRedo() {
+        History history = new History(Long.MAX_VALUE, Integer.MAX_VALUE);
+        Polygon polygon = square();
+
+        gesture(history, new MoveCommand(polygon, 1, 0));
+        history.undo();
+        gesture(history, new MoveCommand(polygon, 0, 1));
+
+        assertFalse(history.canRedo());
+        assertEquals(24, history.getUsedBytes());
+    }
+
+    @Test
+    void checkpointDoesNotSplitGesture() {
+        History history = new History(Long.MAX_VALUE, 1);
+        Polygon polygon = square();
+
+        gesture(history, new MoveCommand(polygon, 1, 0), new MoveCommand(polygon, 1, 0), new MoveCommand(polygon, 1, 0));
+        history.undo();
+        assertAt(polygon, 0, 0);
+    }
+
+    @Test
+    void checkpointRestoresRingsOnUndo() {
+        History history = new History(Long.MAX_VALUE, 2);
+        Polygon polygon = square();
+        Polygon other = square();
+
+        gesture(history, new MoveCommand(polygon, 1, 0));
+        gesture(history, new MoveCommand(polygon, 2, 0));
+        // The interval is reached; the checkpoint is taken as the next gesture starts
+        gesture(history, new MoveCommand(other, 5, 5));
+
+        // Drift the polygon behind the history's back; the checkpoint snaps it back
+        polygon.move(100, 100);
+
+        history.undo();
+        assertAt(other, 0, 0);
+        history.undo();
+        assertAt(polygon, 1, 0);
+        history.undo();
+        assertAt(polygon, 0, 0);
+        assertFalse(history.canUndo());
+
+        history.redo();
+        history.redo();
+        history.redo();
+        assertAt(polygon, 3, 0);
+        assertAt(other, 5, 5);
+    }
+
+    @Test
+    void nestedPerformThrows() {
+        History history = new History(Long.MAX_VALUE, Integer.MAX_VALUE);
+        Polygon polygon = square();
+        Command nested = new MoveCommand(polygon, 1, 0) {
+            @Override
+            public void redo() {
+                history.perform(new MoveCommand(polygon, 1, 0));
+            }
+        };
+
+        assertThrows(IllegalStateException.class, () -> history.perform(nested));
+        assertAt(polygon, 0, 0);
+    }
+
+    @Test
+    void trimReclaimsRedoEntries() {
+        History history = new History(Long.MAX_VALUE, Integer.MAX_VALUE);
+        Polygon polygon = square();
+
+        gesture(history, new MoveCommand(polygon, 1, 0));
+        gesture(history, new MoveCommand(polygon, 2, 0));
+        gesture(history, new MoveCommand(polygon, 3, 0));
+        history.undo();
+        history.undo();
+
+        history.setByteBudget(24);
+        assertEquals(24, history.getUsedBytes());
+        assertFalse(history.canUndo());
+        assertTrue(history.canRedo());
+
+        // The redo entry nearest the current state is the one kept
+        history.redo();
+        assertAt(polygon, 3, 0);
+        assertFalse(history.canRedo());
+    }
+}
@@ -0,0 +1,214 @@
+package com.kubazuch.journal;
+
+import com.kubazuch.geometry.*;
+import com.kubazuch.history.*;
+import com.kubazuch.scene.Scene;
+import com.kubazuch.scene.SceneSnapshot;
+import com.kubazuch.scene.SnapshotPublisher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.*;
+import java.awt.Color;
+import java.awt.Point;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+    @TempDir
+    Path dir;
+
+    private static Polygon polygon(Color color, double... coordinates) {
+        List<Point2D> points = new ArrayList<>();
+        for (int i = 0; i < coordinates.length; i += 2) {
+            points.add(new Point2D.Double(coordinates[i], coordinates[i + 1]));
+        }
+        return new Polygon(points, color, p -> {
+        });
+    }
+
+    private static Edge edge(Polygon polygon, int index) {
+        Iterator<Edge> edges = polygon.getEdges().iterator();
+        for (int i = 0; i < index; i++) {
+            edges.next();
+        }
+        return edges.next();
+    }
+
+    private static void undoable(History history, Command command) {
+        history.seal();
+        history.perform(command);
+    }
+
+    // Runs the steps on the EDT against a freshly journalled scene and returns what the scene looked like after each
+    private static List<SceneSnapshot> record(Path dir, List<BiConsumer<Scene, History>> steps) throws Exception {
+        List<SceneSnapshot> states = new ArrayList<>();
+        AtomicReference<Journal> journal = new AtomicReference<>();
+
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                Scene scene = new Scene();
+                journal.set(Journal.open(dir, scene, p -> {
+                }));
+                SnapshotPublisher snapshots = new SnapshotPublisher(scene);
+                History history = new History(Long.MAX_VALUE, 2);
+                history.addListener(snapshots);
+                history.addListener(journal.get());
+                journal.get().start(snapshots);
+
+                for (BiConsumer<Scene, History> step : steps) {
+                    step.accept(scene, history);
+                    states.add(snapshots.publish());
+                }
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+
+        journal.get().close();
+        return states;
+    }
+
+    private static SceneSnapshot restore(Path dir) throws Exception {
+        AtomicReference<SceneSnapshot> restored = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                Scene scene = new Scene();
+                Journal journal = Journal.open(dir, scene, p -> {
+                });
+                assertTrue(journal.restoredScene());
+                restored.set(new SnapshotPublisher(scene).publish());
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+        return restored.get();
+    }
+
+    private static void assertSameScene(SceneSnapshot expected, SceneSnapshot actual, String when) {
+        assertEquals(expected.getPolygons().size(), actual.getPolygons().size(), when);
+        for (int i = 0; i < expected.getPolygons().size(); i++) {
+            PolygonSnapshot e = expected.getPolygons().get(i);
+            PolygonSnapshot a = actual.getPolygons().get(i);
+            assertEquals(e.getColor(), a.getColor(), when);
+            assertEquals(e.getSize(), a.getSize(), when);
+            for (int j = 0; j < e.getSize(); j++) {
+                assertEquals(e.getX(j), a.getX(j), 1e-9, when);
+                assertEquals(e.getY(j), a.getY(j), 1e-9, when);
+                assertEquals(e.getConstraint(j), a.getConstraint(j), when);
+            }
+        }
+        assertEquals(expected.getCircles(), actual.getCircles(), when);
+    }
+
+    private static Polygon square(Scene scene) {
+        return scene.getPolygons().getElementAt(1);
+    }
+
+    private static Polygon pentagon(Scene scene) {
+        return scene.getPolygons().getElementAt(0);
+    }
+
+    // Every kind of record the editor writes; polygons are added at the front, so the pentagon ends up first
+    private static List<BiConsumer<Scene, History>> edits() {
+        List<BiConsumer<Scene, History>> steps = new ArrayList<>();
+        steps.add((scene, history) -> undoable(history, new AddPolygonCommand(scene, polygon(Color.RED, 0, 0, 100, 0, 100, 100, 0, 100))));
+        steps.add((scene, history) -> undoable(history, new AddPolygonCommand(scene, polygon(Color.BLUE, 200, 0, 300, 20, 320, 120, 250, 180, 190, 90))));
+        steps.add((scene, history) -> undoable(history, new AddCircleCommand(scene, new Circle(new Point(50, 50), 20))));
+
+        // Restoring a cleared scene starts a new snapshot; everything after it is replayed from the journal
+        steps.add((scene, history) -> undoable(history, new ClearCommand(scene)));
+        steps.add((scene, history) -> history.undo());
+
+        steps.add((scene, history) -> undoable(history, new MoveCommand(square(scene), 5, 7)));
+        steps.add((scene, history) -> undoable(history, new MoveCommand(edge(pentagon(scene), 1), 2, 1)));
+        steps.add((scene, history) -> undoable(history, new MoveCommand(edge(pentagon(scene), 2).getDrawableFrom(), -3, 4)));
+        steps.add((scene, history) -> undoable(history, new MoveCommand(scene.getCircles().get(0), 4, 4)));
+        steps.add((scene, history) -> undoable(history, new SplitEdgeCommand(edge(pentagon(scene), 0))));
+        steps.add((scene, history) -> history.undo());
+        steps.add((scene, history) -> history.redo());
+        steps.add((scene, history) -> undoable(history, new ConstraintCommand(edge(pentagon(scene), 3), Edge.Constraint.HORIZONTAL)));
+        steps.add((scene, history) -> history.undo());
+        steps.add((scene, history) -> history.redo());
+        steps.add((scene, history) -> undoable(history, new ColorCommand(square(scene), Color.GREEN)));
+        steps.add((scene, history) -> undoable(history, new DeleteVertexCommand(edge(pentagon(scene), 4).getDrawableFrom())));
+        steps.add((scene, history) -> history.undo());
+
+        steps.add((scene, history) -> {
+            Polygon square = square(scene);
+            RingSnapshot before = square.captureRing();
+            undoable(history, new TransformCommand(square, before, AffineTransform.getRotateInstance(0.3, 50, 50)));
+            history.perform(TransformCommand.bake(square, before));
+        });
+        steps.add((scene, history) -> history.undo());
+        steps.add((scene, history) -> undoable(history, new TransformCommand(square(scene), square(scene).captureRing(), AffineTransform.getScaleInstance(1.5, 0.5))));
+        steps.add((scene, history) -> undoable(history, new RingEditCommand(pentagon(scene), RingEditCommand.Kind.SUBDIVIDE, 2)));
+        steps.add((scene, history) -> history.undo());
+        steps.add((scene, history) -> undoable(history, new RingEditCommand(pentagon(scene), RingEditCommand.Kind.THIN, 0.5)));
+
+        steps.add((scene, history) -> undoable(history, new ReorderCommand(scene, 0, 1)));
+        steps.add((scene, history) -> history.undo());
+        steps.add((scene, history) -> undoable(history, new MoveCommand(pentagon(scene), 1, 1)));
+        // Undone across checkpoints, which restore rings as well
+        steps.add((scene, history) -> {
+            history.undo();
+            history.undo();
+            history.undo();
+        });
+        steps.add((scene, history) -> undoable(history, new RemovePolygonCommand(scene, square(scene))));
+        steps.add((scene, history) -> history.undo());
+        return steps;
+    }
+
+    @Test
+    void replayRestoresEveryStep() throws Exception {
+        List<BiConsumer<Scene, History>> steps = edits();
+        // Each prefix gets its own journal, so an edit replayed wrong cannot be papered over by a later one
+        for (int i = 1; i <= steps.size(); i++) {
+            Path stepDir = dir.resolve("step" + i);
+            List<SceneSnapshot> states = record(stepDir, steps.subList(0, i));
+            assertSameScene(states.get(i - 1), restore(stepDir), "after step " + i);
+        }
+    }
+
+    private List<SceneSnapshot> recordWithLastMove() throws Exception {
+        List<BiConsumer<Scene, History>> steps = edits();
+        steps.add((scene, history) -> undoable(history, new MoveCommand(square(scene), 3, -4)));
+        return record(dir, steps);
+    }
+
+    @Test
+    void tornTailIsDropped() throws Exception {
+        List<SceneSnapshot> states = recordWithLastMove();
+
+        try (RandomAccessFile journal = new RandomAccessFile(dir.resolve("scene.journal").toFile(), "rw")) {
+            journal.setLength(journal.length() - 3);
+        }
+
+        assertSameScene(states.get(states.size() - 2), restore(dir), "torn tail");
+    }
+
+    @Test
+    void corruptTailIsDropped() throws Exception {
+        List<SceneSnapshot> states = recordWithLastMove();
+
+        try (RandomAccessFile journal = new RandomAccessFile(dir.resolve("scene.journal").toFile(), "rw")) {
+            journal.seek(journal.length() - 1);
+            int last = journal.read();
+            journal.seek(journal.length() - 1);
+            journal.write(last ^ 0x55);
+        }
+
+        assertSameScene(states.get(states.size() - 2), restore(dir), "corrupt tail");
+    }
+}
@@ -0,0 +1,167 @@
+package com.kubazuch.scene;
+
+import com.kubazuch.geometry.*;
+import com.kubazuch.history.*;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotPublisherTest {
+    private static Polygon polygon(Random random) {
+        double x = random.nextInt(500), y = random.nextInt(500);
+        return new Polygon(List.of(new Point2D.Double(x, y), new Point2D.Double(x + 40, y),
+                new Point2D.Double(x + 40, y + 30), new Point2D.Double(x, y + 30)), Color.BLACK, p -> {
+        });
+    }
+
+    // The snapshot must match the scene exactly, down to the coordinates the live polygons draw with
+    private static void assertMatchesScene(Scene scene, SceneSnapshot snapshot) {
+        assertEquals(scene.getPolygons().getSize(), snapshot.getPolygons().size());
+        for (int i = 0; i < scene.getPolygons().getSize(); i++) {
+            Polygon polygon = scene.getPolygons().getElementAt(i);
+            RingSnapshot live = polygon.captureRing();
+            PolygonSnapshot published = snapshot.getPolygons().get(i);
+
+            assertEquals(polygon.getColor(), published.getColor());
+            assertEquals(live.getSize(), published.getSize());
+            for (int j = 0; j < live.getSize(); j++) {
+                assertEquals(live.getX(j), published.getX(j));
+                assertEquals(live.getY(j), published.getY(j));
+                assertEquals(live.getConstraint(j), published.getConstraint(j));
+            }
+        }
+
+        assertEquals(scene.getCircles().size(), snapshot.getCircles().size());
+        for (int i = 0; i < scene.getCircles().size(); i++) {
+            Circle circle = scene.getCircles().get(i);
+            assertEquals(new SceneSnapshot.CircleSnapshot(circle.getCenter().x, circle.getCenter().y, circle.getRadius()),
+                    snapshot.getCircles().get(i));
+        }
+    }
+
+    private static void onEdt(Runnable test) throws Exception {
+        try {
+            SwingUtilities.invokeAndWait(test);
+        } catch (java.lang.reflect.InvocationTargetException e) {
+            if (e.getCause() instanceof Error error)
+                throw error;
+            throw e;
+        }
+    }
+
+    @Test
+    void publishedSnapshotsFollowRandomEdits() throws Exception {
+        onEdt(() -> {
+            for (long seed = 0; seed < 10; seed++) {
+                Random random = new Random(seed);
+                Scene scene = new Scene();
+                History history = new History(Long.MAX_VALUE, 8);
+                SnapshotPublisher publisher = new SnapshotPublisher(scene);
+                history.addListener(publisher);
+
+                for (int i = 0; i < 150; i++) {
+                    scene.getPolygons().add(polygon(random));
+                }
+                publisher.invalidate();
+                assertMatchesScene(scene, publisher.publish());
+
+                for (int step = 0; step < 400; step++) {
+                    int size = scene.getPolygons().getSize();
+                    Polygon target = size == 0 ? null : scene.getPolygons().getElementAt(random.nextInt(size));
+                    history.seal();
+
+                    switch (random.nextInt(10)) {
+                        case 0 -> history.perform(new AddPolygonCommand(scene, polygon(random)));
+                        case 1 -> {
+                            if (target != null)
+                                history.perform(new RemovePolygonCommand(scene, target));
+                        }
+                        case 2 -> {
+                            if (size > 1)
+                                history.perform(new ReorderCommand(scene, random.nextInt(size), random.nextInt(size)));
+                        }
+                        case 3 -> {
+                            if (target != null)
+                                history.perform(new ColorCommand(target, new Color(random.nextInt(0xffffff))));
+                        }
+                        case 4 -> {
+                            if (target != null)
+                                history.perform(new MoveCommand(target.getEdges().iterator().next().getDrawableFrom(), 3, -2));
+                        }
+                        case 5 -> {
+                            if (target == null)
+                                break;
+                            // A rotation gesture, published halfway through and then baked
+                            RingSnapshot before = target.captureRing();
+                            history.perform(new TransformCommand(target, before, AffineTransform.getRotateInstance(0.1, 100, 100)));
+                            history.perform(new TransformCommand(target, before, AffineTransform.getScaleInstance(1.1, 0.9)));
+                            assertMatchesScene(scene, publisher.publish());
+                            history.perform(TransformCommand.bake(target, before));
+                        }
+                        case 6 -> history.undo();
+                        case 7 -> history.redo();
+                        default -> {
+                            if (target == null)
+                                break;
+                            // A drag: every step is published, while the rest of the scene stays shared
+                            SceneSnapshot start = publisher.publish();
+                            for (int i = 0; i < 5; i++) {
+                                // Anything reading the vertices individually bakes the pending transform in between
+                                if (i == 2)
+                                    target.bake();
+                                history.perform(new MoveCommand(target, random.nextInt(7) - 3, random.nextInt(7) - 3));
+                                SceneSnapshot snapshot = publisher.publish();
+                                assertMatchesScene(scene, snapshot);
+                                for (int j = 0; j < size; j++) {
+                                    if (scene.getPolygons().getElementAt(j) != target)
+                                        assertSame(start.getPolygons().get(j), snapshot.getPolygons().get(j));
+                                }
+                            }
+                        }
+                    }
+
+                    if (random.nextInt(3) == 0)
+                        assertMatchesScene(scene, publisher.publish());
+                }
+                assertMatchesScene(scene, publisher.publish());
+            }
+        });
+    }
+
+    @Test
+    void earlierSnapshotsStayUnchanged() throws Exception {
+        onEdt(() -> {
+            Random random = new Random(1);
+            Scene scene = new Scene();
+            History history = new History(Long.MAX_VALUE, 8);
+            SnapshotPublisher publisher = new SnapshotPublisher(scene);
+            history.addListener(publisher);
+            for (int i = 0; i < 100; i++) {
+                history.perform(new AddPolygonCommand(scene, polygon(random)));
+            }
+
+            SceneSnapshot before = publisher.publish();
+            double x = before.getPolygons().get(70).getX(0);
+            Polygon target = scene.getPolygons().getElementAt(70);
+
+            history.perform(new MoveCommand(target, 10, 0));
+            history.perform(new ColorCommand(scene.getPolygons().getElementAt(3), Color.RED));
+            SceneSnapshot after = publisher.publish();
+
+            assertEquals(x, before.getPolygons().get(70).getX(0));
+            assertEquals(x + 10, after.getPolygons().get(70).getX(0));
+            assertEquals(Color.BLACK, before.getPolygons().get(3).getColor());
+            assertEquals(Color.RED, after.getPolygons().get(3).getColor());
+            assertSame(before.getPolygons().get(69), after.getPolygons().get(69));
+            assertThrows(UnsupportedOperationException.class, () -> after.getPolygons().set(0, null));
+        });
+    }
+}